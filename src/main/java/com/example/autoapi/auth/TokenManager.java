@@ -4,48 +4,87 @@ import com.example.autoapi.base.ApiClient;
 import com.example.autoapi.config.EnvConfig;
 import com.example.autoapi.utils.ParamResolver;
 import com.example.autoapi.utils.ResponseDataStore;
+import com.example.autoapi.validator.JsonDocument;
 import com.example.autoapi.validator.ResponseValidator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class TokenManager {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenManager.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // 正在进行的刷新；并发请求同时遇到 401 时只发一次登录，其余线程等待同一个结果
+    private static final AtomicReference<CompletableFuture<String>> inFlight = new AtomicReference<>();
+
+    // 当前线程是否正在执行登录请求，防止登录接口本身返回 401 时递归刷新
+    private static final ThreadLocal<Boolean> refreshing = ThreadLocal.withInitial(() -> false);
+
+    // 当前 token 的过期时间（毫秒时间戳），0 表示未知
+    private static volatile long expiresAt;
+
+    // token 代数：每次登录成功加一，用于判断请求发出后是否已有其他线程刷新过 token
+    private static final AtomicLong generation = new AtomicLong();
 
     /**
      * 自动刷新 token（接口 401 时调用）
+     * 已有刷新在进行时不会重复登录，而是等待其结果
      */
     public static void refreshToken() {
-        try {
-            String baseUrl = EnvConfig.get("base.url");
-            String url = baseUrl + "/MerchantUsers/PasswordLogin"; // Token刷新接口
+        refreshToken(-1);
+    }
 
-            String user = EnvConfig.get("login.user");
-            String pass = EnvConfig.get("login.pass");
-            String body = String.format("{\"account\":\"%s\",\"password\":\"%s\"}", user, pass);
+    /**
+     * 当前 token 代数，发请求前取值，遇到 token 失效时传给 {@link #refreshToken(long)}
+     */
+    public static long generation() {
+        return generation.get();
+    }
 
-            // 解析 URL 和 body
-            String resolvedUrl = ParamResolver.resolve(url);
-            String resolvedBody = ParamResolver.resolve(body);
+    /**
+     * 刷新被拒绝的 token
+     * 若请求发出后已有其他线程完成刷新（代数已变化），直接返回当前 token，不再登录。
+     * 按代数而不是 token 文本判断，Authorization 写成 "Bearer ${login_token}" 等形式时同样适用
+     *
+     * @param seenGeneration 发出请求前 {@link #generation()} 的值，-1 表示强制刷新
+     * @return 刷新后的 token
+     */
+    public static String refreshToken(long seenGeneration) {
+        if (isStale(seenGeneration)) {
+            logger.debug("🔁 token 已被其他请求刷新，直接使用新 token");
+            return ResponseDataStore.get("login_token");
+        }
 
-            // 使用 ApiClient.execute 发送请求
-            String response = ApiClient.execute("POST", resolvedUrl, resolvedBody, "Content-Type=application/json");
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            return awaitRefresh(existing);
+        }
 
-            if (response == null || response.isEmpty()) {
-                logger.error("❌ Token刷新失败: 响应为空");
-                throw new RuntimeException("Token刷新失败，响应为空");
+        try {
+            // 拿到刷新权后再确认一次，避免刚完成的刷新被重复执行
+            if (isStale(seenGeneration)) {
+                mine.complete(ResponseDataStore.get("login_token"));
+            } else {
+                String token = requestToken();
+                logger.info("🔄 token refreshed: {}", token);
+                mine.complete(token);
             }
-
-            // 验证返回的 JSON 是否包含 AccessToken 字段
-            ResponseValidator.validateJsonField(response, "data.AccessToken", "not_null");
-            ResponseValidator.extractJsonField(response, "data.AccessToken", "login_token");
-
-            logger.info("🔄 token refreshed: {}", ResponseDataStore.get("login_token"));
-
         } catch (Exception e) {
             logger.error("❌ Token刷新异常: {}", e.getMessage(), e);
-            throw new RuntimeException("Token刷新失败", e);
+            mine.completeExceptionally(new RuntimeException("Token刷新失败", e));
+        } finally {
+            inFlight.set(null);
         }
+        return awaitRefresh(mine);
     }
 
     /**
@@ -53,35 +92,122 @@ public class TokenManager {
      */
     public static void loginAndStoreToken() {
         try {
-            String baseUrl = EnvConfig.get("base.url");
-            String url = baseUrl + "/MerchantUsers/PasswordLogin"; // 登录接口
+            String token = requestToken();
+            logger.info("✅ 登录成功，token: {}", token);
 
-            String user = EnvConfig.get("login.user");
-            String pass = EnvConfig.get("login.pass");
-            String body = String.format("{\"account\":\"%s\",\"password\":\"%s\"}", user, pass);
+        } catch (Exception e) {
+            logger.error("🚨 登录异常: {}", e.getMessage(), e);
+            throw new RuntimeException("登录失败，无法获取 token", e);
+        }
+    }
 
-            // 解析 URL 和 body
-            String resolvedUrl = ParamResolver.resolve(url);
-            String resolvedBody = ParamResolver.resolve(body);
+    /**
+     * 主动刷新：token 将在 token.refresh.skewSeconds 秒内过期时提前刷新，尽量避免请求先吃一次 401
+     * 刷新失败只记录告警，请求仍按原 token 发出，由 401 重试兜底
+     */
+    public static void ensureFresh() {
+        if (!needsRefresh()) return;
+        try {
+            refreshToken(generation());
+        } catch (Exception e) {
+            logger.warn("⚠️ token 即将过期，主动刷新失败: {}", e.getMessage());
+        }
+    }
 
-            // 使用 ApiClient.execute 发送请求
-            String response = ApiClient.execute("POST", resolvedUrl, resolvedBody, "Content-Type=application/json");
+    /**
+     * 当前 token 是否已接近过期（过期时间未知时返回 false）
+     */
+    public static boolean needsRefresh() {
+        if (refreshing.get() || !EnvConfig.getBoolean("token.refresh.proactive", true)) return false;
+        long expiry = expiresAt;
+        if (expiry <= 0 || ResponseDataStore.get("login_token") == null) return false;
+        long skewMs = EnvConfig.getInt("token.refresh.skewSeconds", 30) * 1000L;
+        return System.currentTimeMillis() >= expiry - skewMs;
+    }
 
-            if (response == null || response.isEmpty()) {
-                logger.error("🚫 登录失败，响应为空");
-                throw new RuntimeException("登录失败：Token未获取");
-            }
+    /**
+     * 当前线程是否正在执行登录请求
+     */
+    public static boolean isRefreshing() {
+        return refreshing.get();
+    }
+
+    /**
+     * 发送登录请求，校验并缓存 token，同时记录过期时间
+     */
+    private static String requestToken() {
+        String baseUrl = EnvConfig.get("base.url");
+        String url = baseUrl + "/MerchantUsers/PasswordLogin"; // 登录接口
+
+        String user = EnvConfig.get("login.user");
+        String pass = EnvConfig.get("login.pass");
+        String body = String.format("{\"account\":\"%s\",\"password\":\"%s\"}", user, pass);
 
-            // 验证返回的 JSON 是否包含 AccessToken 字段
-            ResponseValidator.validateJsonField(response, "data.AccessToken", "not_null");
-            ResponseValidator.extractJsonField(response, "data.AccessToken", "login_token");
+        // 解析 URL 和 body
+        String resolvedUrl = ParamResolver.resolve(url);
+        String resolvedBody = ParamResolver.resolve(body);
 
-            logger.info("✅ 登录成功，token: {}", ResponseDataStore.get("login_token"));
+        // 使用 ApiClient.execute 发送请求
+        String response;
+        refreshing.set(true);
+        try {
+            response = ApiClient.execute("POST", resolvedUrl, resolvedBody, "Content-Type=application/json");
+        } finally {
+            refreshing.set(false);
+        }
+
+        if (response == null || response.isEmpty()) {
+            logger.error("🚫 登录失败，响应为空");
+            throw new RuntimeException("登录失败：Token未获取");
+        }
 
+        // 验证返回的 JSON 是否包含 AccessToken 字段（校验与提取共用一次解析）
+        JsonDocument document = JsonDocument.of(response);
+        ResponseValidator.validateJsonField(document, "data.AccessToken", "not_null");
+        ResponseValidator.extractJsonField(document, "data.AccessToken", "login_token");
+
+        String token = ResponseDataStore.get("login_token");
+        expiresAt = resolveExpiry(token);
+        generation.incrementAndGet();
+        return token;
+    }
+
+    private static boolean isStale(long seenGeneration) {
+        return seenGeneration >= 0 && generation.get() != seenGeneration;
+    }
+
+    private static String awaitRefresh(CompletableFuture<String> refresh) {
+        try {
+            return refresh.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException("Token刷新失败", e.getCause());
+        }
+    }
+
+    /**
+     * 过期时间：优先取 JWT 的 exp，其次按 token.ttl.seconds 推算，都没有时返回 0
+     */
+    private static long resolveExpiry(String token) {
+        long exp = jwtExpiry(token);
+        if (exp > 0) return exp;
+
+        int ttlSeconds = EnvConfig.getInt("token.ttl.seconds", 0);
+        return ttlSeconds > 0 ? System.currentTimeMillis() + ttlSeconds * 1000L : 0;
+    }
+
+    private static long jwtExpiry(String token) {
+        if (token == null) return 0;
+        String jwt = token.regionMatches(true, 0, "Bearer ", 0, 7) ? token.substring(7).trim() : token;
+        String[] parts = jwt.split("\\.");
+        if (parts.length != 3) return 0;
+
+        try {
+            JsonNode payload = mapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            JsonNode exp = payload.path("exp");
+            return exp.canConvertToLong() ? exp.asLong() * 1000L : 0;
         } catch (Exception e) {
-            logger.error("🚨 登录异常: {}", e.getMessage(), e);
-            throw new RuntimeException("登录失败，无法获取 token", e);
+            logger.debug("token 不是有效的 JWT，无法读取 exp: {}", e.getMessage());
+            return 0;
         }
     }
 }
-
@@ -2,6 +2,8 @@ package com.example.autoapi.base;
 
 import com.example.autoapi.auth.TokenManager;
 import com.example.autoapi.config.EnvConfig;
+import com.example.autoapi.replay.RecordStore;
+import com.example.autoapi.replay.ReplayServer;
 import com.example.autoapi.utils.HeaderUtil;
 import com.example.autoapi.utils.ParamResolver;
 import com.example.autoapi.utils.ResponseDataStore;
@@ -11,84 +13,444 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.net.http.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class ApiClient {
 
     private static final Logger logger = LoggerFactory.getLogger(ApiClient.class);
-    private static final HttpClient client = HttpClient.newHttpClient();
+    private static final HttpClient client = HttpClientFactory.create();
 
+    // 异步请求中 token 刷新等阻塞步骤的线程池：复用 http.executor 配置的线程池，默认配置下使用独立的守护线程池
+    private static final Executor ASYNC_EXECUTOR = client.executor()
+            .orElseGet(() -> HttpClientFactory.newExecutor("cached", "api-client-async"));
+    private static final RetryPolicy RETRY = RetryPolicy.DEFAULT;
+
+    // http.mode：record 录制每个请求的最终响应，replay 改由本地回放服务应答
+    private static final boolean RECORDING = RecordStore.isRecording();
+    private static final boolean REPLAYING = RecordStore.isReplaying();
+
+    // 响应体在内存中最多缓存的字节数，超出部分落到临时文件；0 表示不限制
+    private static final long MAX_BUFFERED_BYTES = EnvConfig.getInt("http.body.maxBufferedBytes", 0);
+    private static final HttpResponse.BodyHandler<CappedBodySubscriber.Body> BODY_HANDLER = CappedBodySubscriber.handler(
+            MAX_BUFFERED_BYTES, EnvConfig.get("http.body.spillDir").isEmpty() ? null : Path.of(EnvConfig.get("http.body.spillDir")));
+
+    /**
+     * 同步执行请求并返回响应体字符串
+     * 返回 String 需要把响应体整段加载到内存；大响应请使用 {@link #executeForResponse} 拿到 ApiResponse 后按需读取
+     */
     public static String execute(String method, String url, String body, String headersRaw) {
+        try (ApiResponse response = executeForResponse(method, url, body, headersRaw)) {
+            return response.getBody();
+        }
+    }
+
+    /**
+     * 同步执行请求并返回完整响应：状态码、响应头、耗时、重试记录与响应体
+     * 响应体可能落在临时文件中，调用方用完后应 close()
+     */
+    public static ApiResponse executeForResponse(String method, String url, String body, String headersRaw) {
+        return executeForResponse(method, url, body, headersRaw, true);
+    }
+
+    /**
+     * 同 {@link #executeForResponse(String, String, String, String)}
+     *
+     * @param useCache false 时本次请求绕过 GET 响应缓存（既不读也不写），不改动发出的请求头
+     */
+    public static ApiResponse executeForResponse(String method, String url, String body, String headersRaw, boolean useCache) {
+        TokenManager.ensureFresh();
+
+        // 在读取 token 之前记下代数，token 失效时据此判断是否已被其他请求刷新
+        long tokenGeneration = TokenManager.generation();
         String resolvedUrl = ParamResolver.resolveWithStore(url);
         String resolvedBody = ParamResolver.resolveWithStore(body);
-        String resolvedHeadersRaw = ParamResolver.resolveWithStore(headersRaw);
+        Map<String, String> headers = resolveHeaders(headersRaw);
+
+        try {
+            ApiResponse response = sendRequest(method, resolvedUrl, resolvedBody, headers, useCache);
+            checkNotFound(method, resolvedUrl, response);
+
+            if (isTokenInvalid(response) && !TokenManager.isRefreshing()) {
+                TokenManager.refreshToken(tokenGeneration);
+                headers.put("Authorization", ResponseDataStore.get("login_token"));
+                response.close();
+                response = sendRequest(method, resolvedUrl, ParamResolver.resolveWithStore(body), headers, useCache);
+            }
+
+            return response;
+
+        } catch (CircuitOpenException e) {
+            logger.warn(e.getMessage());
+            throw new RuntimeException("接口请求失败: " + e.getMessage(), e);
+        } catch (Exception e) {
+            logger.error("❌ 请求失败: {}", e.getMessage(), e);
+            throw new RuntimeException("接口请求失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 单次原始请求（供压测使用）：url / body / headersRaw 须由调用方解析好，这里不再解析占位符，
+     * 只在未显式指定 Authorization 时带上缓存的 token 后直接发出。
+     * 不经过响应缓存、重试、熔断与录制，也不处理 404 与 token 失效，一次调用恰好对应一次 HTTP 请求，
+     * 耗时即这一次请求的耗时。回放模式下仍发往本地回放服务。
+     *
+     * @throws RuntimeException 请求构建失败或网络层异常（"❌ 请求失败: ..."）
+     */
+    public static ApiResponse sendRaw(String method, String url, String body, String headersRaw) {
+        Map<String, String> headers = withStoredToken(HeaderUtil.parse(headersRaw));
+        HttpRequest request = newRequest(method, url, body, headers);
+        ApiResponse response = sendOnce(request);
+        response.setAttempts(List.of(new ApiResponse.Attempt(1, response.getStatusCode(), null, response.getDurationMs(), 0)));
+        return response;
+    }
 
-        Map<String, String> headers = HeaderUtil.parse(resolvedHeadersRaw);
+    /**
+     * 非阻塞版本：基于 HttpClient.sendAsync，占位符解析、404 处理、token 失效刷新后重试的语义与 execute 一致
+     * 互不依赖的请求（如登录后的多个 GET）可以同时发出，再用 CompletableFuture.allOf 汇总
+     *
+     * @return 完成时携带完整响应；失败时以 RuntimeException("接口请求失败: ...") 异常完成
+     */
+    public static CompletableFuture<ApiResponse> executeAsync(String method, String url, String body, String headersRaw) {
+        return executeAsync(method, url, body, headersRaw, true);
+    }
 
+    /**
+     * 同 {@link #executeAsync(String, String, String, String)}
+     *
+     * @param useCache false 时本次请求绕过 GET 响应缓存（既不读也不写），不改动发出的请求头
+     */
+    public static CompletableFuture<ApiResponse> executeAsync(String method, String url, String body, String headersRaw, boolean useCache) {
+        if (TokenManager.needsRefresh()) {
+            // token 即将过期：先在 ASYNC_EXECUTOR 中完成（或等待）刷新，再解析占位符发请求
+            return CompletableFuture.runAsync(TokenManager::ensureFresh, ASYNC_EXECUTOR)
+                    .thenCompose(v -> doExecuteAsync(method, url, body, headersRaw, useCache));
+        }
+        return doExecuteAsync(method, url, body, headersRaw, useCache);
+    }
+
+    private static CompletableFuture<ApiResponse> doExecuteAsync(String method, String url, String body, String headersRaw, boolean useCache) {
+        long tokenGeneration = TokenManager.generation();
+        String resolvedUrl;
+        String resolvedBody;
+        Map<String, String> headers;
+        try {
+            resolvedUrl = ParamResolver.resolveWithStore(url);
+            resolvedBody = ParamResolver.resolveWithStore(body);
+            headers = resolveHeaders(headersRaw);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new RuntimeException("接口请求失败: " + e.getMessage(), e));
+        }
+
+        return sendRequestAsync(method, resolvedUrl, resolvedBody, headers, useCache)
+                .thenCompose(response -> {
+                    checkNotFound(method, resolvedUrl, response);
+
+                    if (isTokenInvalid(response)) {
+                        // 刷新 token 是阻塞调用，放到 ASYNC_EXECUTOR 执行，避免占用 HttpClient 的回调线程
+                        response.close();
+                        return CompletableFuture.runAsync(() -> TokenManager.refreshToken(tokenGeneration), ASYNC_EXECUTOR)
+                                .thenCompose(v -> {
+                                    headers.put("Authorization", ResponseDataStore.get("login_token"));
+                                    return sendRequestAsync(method, resolvedUrl, ParamResolver.resolveWithStore(body), headers, useCache);
+                                });
+                    }
+                    return CompletableFuture.completedFuture(response);
+                })
+                .handle((response, error) -> {
+                    if (error == null) return response;
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof CircuitOpenException) {
+                        logger.warn(cause.getMessage());
+                    } else {
+                        logger.error("❌ 请求失败: {}", cause.getMessage(), cause);
+                    }
+                    throw new CompletionException(new RuntimeException("接口请求失败: " + cause.getMessage(), cause));
+                });
+    }
+
+    /**
+     * 供连接预热等内部组件复用同一个 HttpClient（及其连接池）
+     */
+    static HttpClient httpClient() {
+        return client;
+    }
+
+    /**
+     * 解析请求头占位符，并在未显式指定时带上缓存的 token
+     */
+    private static Map<String, String> resolveHeaders(String headersRaw) {
+        String resolvedHeadersRaw = ParamResolver.resolveWithStore(headersRaw);
+        return withStoredToken(HeaderUtil.parse(resolvedHeadersRaw));
+    }
+
+    private static Map<String, String> withStoredToken(Map<String, String> headers) {
         String token = ResponseDataStore.get("login_token");
         if (token != null && !headers.containsKey("Authorization")) {
             headers.put("Authorization", token);
         }
+        return headers;
+    }
+
+    private static void checkNotFound(String method, String url, ApiResponse response) {
+        if (response.getStatusCode() == 404) {
+            logger.error("🚫 接口不存在: [{} {}] -> {}", method, url, response.preview(500));
+            response.close();
+            throw new RuntimeException("接口返回 404：资源不存在，请检查 URL 或服务是否上线");
+        }
+    }
+
+    /**
+     * 发送请求；GET 且开启了 http.cache.enabled 时先查响应缓存，过期条目走条件请求重新验证
+     */
+    private static ApiResponse sendRequest(String method, String url, String body, Map<String, String> headers, boolean useCache) {
+        if (!useCache || !ResponseCache.applies(method, headers)) {
+            return doSend(method, url, body, headers);
+        }
 
+        ResponseCache.Entry cached = ResponseCache.lookup(url, headers);
+        if (cached != null && cached.isFresh()) {
+            logger.debug("📦 命中响应缓存: {}", url);
+            return cached.toCacheHit();
+        }
+        Map<String, String> requestHeaders = cached != null ? cached.conditionalHeaders(headers) : headers;
+        return ResponseCache.complete(url, headers, cached, doSend(method, url, body, requestHeaders));
+    }
+
+    private static CompletableFuture<ApiResponse> sendRequestAsync(String method, String url, String body, Map<String, String> headers,
+                                                                   boolean useCache) {
+        if (!useCache || !ResponseCache.applies(method, headers)) {
+            return doSendAsync(method, url, body, headers);
+        }
+
+        ResponseCache.Entry cached = ResponseCache.lookup(url, headers);
+        if (cached != null && cached.isFresh()) {
+            logger.debug("📦 命中响应缓存: {}", url);
+            return CompletableFuture.completedFuture(cached.toCacheHit());
+        }
+        Map<String, String> requestHeaders = cached != null ? cached.conditionalHeaders(headers) : headers;
+        return doSendAsync(method, url, body, requestHeaders)
+                .thenApply(response -> ResponseCache.complete(url, headers, cached, response));
+    }
+
+    /**
+     * 按 RetryPolicy 发送请求，每次实际请求都记录在 ApiResponse.getAttempts() 中
+     */
+    private static ApiResponse doSend(String method, String url, String body, Map<String, String> headers) {
+        // 非法 URL、不支持的方法等是用例数据问题，在熔断器之外报错，不计入主机失败
+        HttpRequest request = newRequest(method, url, body, headers);
+        CircuitBreaker breaker = CircuitBreaker.forUrl(url);
+        if (breaker != null) breaker.acquire();
+
+        ApiResponse response;
         try {
-            ApiResponse response = sendRequest(method, resolvedUrl, resolvedBody, headers);
+            response = sendWithRetry(method, url, request);
+        } catch (RuntimeException e) {
+            if (breaker != null) breaker.recordError(e);
+            throw e;
+        }
+        if (breaker != null) breaker.record(response.getStatusCode());
+        if (RECORDING) RecordStore.record(method, url, body, response);
+        return response;
+    }
 
-            if (response.getStatusCode() == 404) {
-                logger.error("🚫 接口不存在: [{} {}] -> {}", method, resolvedUrl, response.getBody());
-                throw new RuntimeException("接口返回 404：资源不存在，请检查 URL 或服务是否上线");
+    private static ApiResponse sendWithRetry(String method, String url, HttpRequest request) {
+        List<ApiResponse.Attempt> attempts = new ArrayList<>();
+        for (int attempt = 1; ; attempt++) {
+            long start = System.currentTimeMillis();
+            ApiResponse response;
+            try {
+                response = sendOnce(request);
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (!RETRY.shouldRetry(method, attempt, cause)) throw e;
+
+                long delay = RETRY.delayMs(attempt, null);
+                attempts.add(new ApiResponse.Attempt(attempt, -1, cause.toString(), System.currentTimeMillis() - start, delay));
+                logger.warn("🔁 [{} {}] 第 {} 次请求异常: {}，{} ms 后重试", method, url, attempt, cause, delay);
+                sleep(delay);
+                continue;
             }
 
-            if (isTokenInvalid(response)) {
-                TokenManager.refreshToken();
-                headers.put("Authorization", ResponseDataStore.get("login_token"));
-                response = sendRequest(method, resolvedUrl, ParamResolver.resolveWithStore(body), headers);
+            int status = response.getStatusCode();
+            if (RETRY.shouldRetry(method, attempt, status)) {
+                long delay = RETRY.delayMs(attempt, response.getHeaders());
+                attempts.add(new ApiResponse.Attempt(attempt, status, null, response.getDurationMs(), delay));
+                logger.warn("🔁 [{} {}] 第 {} 次请求返回 {}，{} ms 后重试", method, url, attempt, status, delay);
+                response.close();
+                sleep(delay);
+                continue;
             }
 
-            return response.getBody();
+            attempts.add(new ApiResponse.Attempt(attempt, status, null, response.getDurationMs(), 0));
+            response.setAttempts(attempts);
+            return response;
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("❌ 请求失败: {}", e.getMessage(), e);
-            throw new RuntimeException("接口请求失败: " + e.getMessage(), e);
+    private static CompletableFuture<ApiResponse> doSendAsync(String method, String url, String body, Map<String, String> headers) {
+        HttpRequest request;
+        CircuitBreaker breaker = CircuitBreaker.forUrl(url);
+        try {
+            request = newRequest(method, url, body, headers);
+            if (breaker != null) breaker.acquire();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        return attemptAsync(method, url, request, 1, new ArrayList<>())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        if (breaker != null) {
+                            breaker.recordError(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                        }
+                        return;
+                    }
+                    if (breaker != null) breaker.record(response.getStatusCode());
+                    if (RECORDING) RecordStore.record(method, url, body, response);
+                });
     }
 
-    private static ApiResponse sendRequest(String method, String url, String body, Map<String, String> headers) {
-        ApiResponse result = new ApiResponse();
+    /**
+     * 异步重试：失败后通过 delayedExecutor 等待，不占用线程
+     */
+    private static CompletableFuture<ApiResponse> attemptAsync(String method, String url, HttpRequest request,
+                                                               int attempt, List<ApiResponse.Attempt> attempts) {
         long start = System.currentTimeMillis();
+        return sendOnceAsync(request)
+                .handle((response, error) -> {
+                    long delay;
+                    if (error != null) {
+                        Throwable wrapped = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        Throwable cause = wrapped.getCause() != null ? wrapped.getCause() : wrapped;
+                        if (!RETRY.shouldRetry(method, attempt, cause)) {
+                            return CompletableFuture.<ApiResponse>failedFuture(wrapped);
+                        }
+                        delay = RETRY.delayMs(attempt, null);
+                        attempts.add(new ApiResponse.Attempt(attempt, -1, cause.toString(), System.currentTimeMillis() - start, delay));
+                        logger.warn("🔁 [{} {}] 第 {} 次请求异常: {}，{} ms 后重试", method, url, attempt, cause, delay);
+                    } else if (RETRY.shouldRetry(method, attempt, response.getStatusCode())) {
+                        delay = RETRY.delayMs(attempt, response.getHeaders());
+                        attempts.add(new ApiResponse.Attempt(attempt, response.getStatusCode(), null, response.getDurationMs(), delay));
+                        logger.warn("🔁 [{} {}] 第 {} 次请求返回 {}，{} ms 后重试", method, url, attempt, response.getStatusCode(), delay);
+                        response.close();
+                    } else {
+                        attempts.add(new ApiResponse.Attempt(attempt, response.getStatusCode(), null, response.getDurationMs(), 0));
+                        response.setAttempts(attempts);
+                        return CompletableFuture.completedFuture(response);
+                    }
+
+                    Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> { }, delayed)
+                            .thenCompose(v -> attemptAsync(method, url, request, attempt + 1, attempts));
+                })
+                .thenCompose(future -> future);
+    }
 
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
         try {
-            HttpRequest.Builder builder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofMillis(EnvConfig.getInt("timeout.ms", 5000)));
-
-            switch (method.toUpperCase()) {
-                case "GET" -> builder.GET();
-                case "DELETE" -> builder.DELETE();
-                case "POST", "PUT", "PATCH" ->
-                        builder.method(method, HttpRequest.BodyPublishers.ofString(body == null ? "" : body, StandardCharsets.UTF_8));
-                default -> throw new IllegalArgumentException("❌ 不支持的请求方法: " + method);
-            }
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("❌ 请求重试等待被中断", e);
+        }
+    }
 
-            headers.forEach(builder::header);
-            HttpResponse<String> httpResponse = client.send(builder.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    private static ApiResponse sendOnce(HttpRequest request) {
+        long start = System.currentTimeMillis();
+
+        try {
+            HttpResponse<CappedBodySubscriber.Body> httpResponse = client.send(request, BODY_HANDLER);
+            return toApiResponse(httpResponse, start);
+
+        } catch (Exception e) {
+            throw new RuntimeException("❌ 请求失败: " + e.getMessage(), e);
+        }
+    }
 
-            result.setStatusCode(httpResponse.statusCode());
-            result.setBody(httpResponse.body());
-            result.setDurationMs(System.currentTimeMillis() - start);
-            result.setHeaders(flattenHeaders(httpResponse.headers().map()));
+    private static CompletableFuture<ApiResponse> sendOnceAsync(HttpRequest request) {
+        long start = System.currentTimeMillis();
 
-            logger.debug("📨 响应体前200字符: {}", result.getBody().length() > 200 ? result.getBody().substring(0, 200) + "..." : result.getBody());
-            return result;
+        return client.sendAsync(request, BODY_HANDLER)
+                .handle((httpResponse, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        throw new CompletionException(new RuntimeException("❌ 请求失败: " + cause.getMessage(), cause));
+                    }
+                    return toApiResponse(httpResponse, start);
+                });
+    }
 
+    /**
+     * 构建请求（重试时复用同一个 HttpRequest），构建失败时与发送失败一样以 "❌ 请求失败" 报出
+     */
+    private static HttpRequest newRequest(String method, String url, String body, Map<String, String> headers) {
+        try {
+            return buildRequest(method, url, body, headers);
         } catch (Exception e) {
             throw new RuntimeException("❌ 请求失败: " + e.getMessage(), e);
         }
     }
 
-    private static boolean isTokenInvalid(ApiResponse response) {
+    private static HttpRequest buildRequest(String method, String url, String body, Map<String, String> headers) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .timeout(Duration.ofMillis(EnvConfig.getInt("timeout.ms", 5000)));
+
+        if (REPLAYING) {
+            // 回放模式：改发到本地回放服务，原始 scheme://host:port 通过请求头带过去
+            String query = uri.getRawQuery();
+            builder.uri(URI.create(ReplayServer.shared().baseUrl() + uri.getRawPath() + (query != null ? "?" + query : "")))
+                    .header(ReplayServer.TARGET_HEADER, uri.getScheme() + "://" + uri.getRawAuthority());
+        } else {
+            builder.uri(uri);
+        }
+
+        switch (method.toUpperCase()) {
+            case "GET" -> builder.GET();
+            case "DELETE" -> builder.DELETE();
+            case "POST", "PUT", "PATCH" ->
+                    builder.method(method, HttpRequest.BodyPublishers.ofString(body == null ? "" : body, StandardCharsets.UTF_8));
+            default -> throw new IllegalArgumentException("❌ 不支持的请求方法: " + method);
+        }
+
+        headers.forEach(builder::header);
+        return builder.build();
+    }
+
+    private static ApiResponse toApiResponse(HttpResponse<CappedBodySubscriber.Body> httpResponse, long start) {
+        ApiResponse result = new ApiResponse();
+        result.setStatusCode(httpResponse.statusCode());
+        CappedBodySubscriber.Body body = httpResponse.body();
+        if (body.file() != null) {
+            result.setBodyFile(body.file(), body.size());
+            logger.info("📦 响应体 {} 字节超出内存上限 {}，已写入临时文件: {}", body.size(), MAX_BUFFERED_BYTES, body.file());
+        } else {
+            result.setBodyBytes(body.bytes());
+        }
+        result.setDurationMs(System.currentTimeMillis() - start);
+        result.setHeaders(flattenHeaders(httpResponse.headers().map()));
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("📨 响应体前200字符: {}", result.preview(200));
+        }
+        return result;
+    }
+
+    /**
+     * 响应是否为 token 失效提示（服务端以 200 + "code":401 的形式返回）
+     */
+    public static boolean isTokenInvalid(ApiResponse response) {
+        // 落盘的大响应不可能是 token 失效提示，不必整段读取
+        if (response.isSpilled()) return false;
         return response.getBody().contains("token失效") || response.getBody().contains("\"code\":401");
     }
 
@@ -1,13 +1,63 @@
 package com.example.autoapi.base;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接口响应；响应体超出 http.body.maxBufferedBytes 落到临时文件时，用完后应调用 {@link #close()} 删除该文件
+ */
+public class ApiResponse implements AutoCloseable {
+
+    // 未关闭的响应被回收时由 Cleaner 兜底删除临时文件；JVM 退出时再清理仍存活的
+    private static final Cleaner cleaner = Cleaner.create();
+    private static final Set<Path> liveSpills = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> liveSpills.forEach(SpillCleanup::delete), "api-response-cleanup"));
+    }
+
+    /**
+     * 一次实际发出的请求
+     *
+     * @param number     第几次请求（从 1 开始）
+     * @param statusCode 状态码，请求异常时为 -1
+     * @param error      异常信息，正常响应时为 null
+     * @param durationMs 本次请求耗时
+     * @param delayMs    本次失败后到下一次重试前的等待时间，最后一次为 0
+     */
+    public record Attempt(int number, int statusCode, String error, long durationMs, long delayMs) {
+    }
 
-public class ApiResponse {
     private int statusCode;
     private Map<String, String> headers;
     private String body;
     private long durationMs;
 
+    // 流式模式下的原始响应体：未超出 http.body.maxBufferedBytes 时在内存中，超出时落在临时文件
+    private byte[] bodyBytes;
+    private Path bodyFile;
+    private long bodySize = -1;
+
+    private Cleaner.Cleanable spillCleanup;
+
+    // 新鲜期内直接由 GET 响应缓存返回，未发出请求
+    private boolean cacheHit;
+
+    // 传输层重试记录，未发生重试时只有一条
+    private List<Attempt> attempts = List.of();
+
     public int getStatusCode() {
         return statusCode;
     }
@@ -22,11 +72,196 @@ public class ApiResponse {
         this.headers = headers;
     }
 
+    /**
+     * 完整响应体字符串
+     * 内存中的响应体首次调用时解码并缓存；已落盘的大响应体每次都从文件读取，不在堆上常驻，
+     * 这类响应应优先使用 {@link #openBody()} / {@link #preview(int)}
+     */
     public String getBody() {
-        return body;
+        if (body != null) return body;
+        if (bodyBytes != null) {
+            body = new String(bodyBytes, StandardCharsets.UTF_8);
+            bodyBytes = null;
+            return body;
+        }
+        if (bodyFile != null) {
+            try {
+                return Files.readString(bodyFile, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("❌ 读取响应体临时文件失败: " + bodyFile, e);
+            }
+        }
+        return null;
     }
     public void setBody(String body) {
+        releaseFile();
         this.body = body;
+        this.bodyBytes = null;
+        this.bodyFile = null;
+        this.bodySize = -1;
+    }
+
+    void setBodyBytes(byte[] bytes) {
+        releaseFile();
+        this.body = null;
+        this.bodyBytes = bytes;
+        this.bodyFile = null;
+        this.bodySize = bytes.length;
+    }
+
+    void setBodyFile(Path file, long size) {
+        releaseFile();
+        this.body = null;
+        this.bodyBytes = null;
+        this.bodyFile = file;
+        this.bodySize = size;
+        liveSpills.add(file);
+        this.spillCleanup = cleaner.register(this, new SpillCleanup(file));
+    }
+
+    /**
+     * 删除落盘的响应体临时文件；之后不能再读取该响应体。内存中的响应体不受影响，可重复调用
+     */
+    @Override
+    public void close() {
+        releaseFile();
+    }
+
+    private void releaseFile() {
+        if (spillCleanup != null) {
+            spillCleanup.clean();
+            spillCleanup = null;
+        }
+    }
+
+    /**
+     * 删除临时文件的清理动作，不能引用 ApiResponse 本身，否则对象永远不会被回收
+     */
+    private record SpillCleanup(Path file) implements Runnable {
+        @Override
+        public void run() {
+            delete(file);
+        }
+
+        static void delete(Path file) {
+            liveSpills.remove(file);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // 临时目录中的残留文件不影响结果
+            }
+        }
+    }
+
+    /**
+     * 以流的形式读取响应体，调用方负责关闭
+     */
+    public InputStream openBody() throws IOException {
+        if (bodyFile != null && body == null) return Files.newInputStream(bodyFile);
+        if (bodyBytes != null) return new ByteArrayInputStream(bodyBytes);
+        String text = body == null ? "" : body;
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 响应体前 maxChars 个字符，超出部分以 "...(共 N 字节)" 标记；不会整段加载大响应体
+     */
+    public String preview(int maxChars) {
+        if (bodyFile == null || body != null) {
+            return abbreviate(getBody(), maxChars);
+        }
+        try (Reader reader = new InputStreamReader(Files.newInputStream(bodyFile), StandardCharsets.UTF_8)) {
+            char[] buf = new char[Math.max(maxChars, 0)];
+            int n = 0;
+            while (n < buf.length) {
+                int read = reader.read(buf, n, buf.length - n);
+                if (read < 0) break;
+                n += read;
+            }
+            return new String(buf, 0, n) + "...(共 " + bodySize + " 字节)";
+        } catch (IOException e) {
+            return "(响应体读取失败: " + e.getMessage() + ")";
+        }
+    }
+
+    /**
+     * 响应体是否包含给定文本；落盘的大响应体按块流式查找，不整段加载
+     */
+    public boolean bodyContains(String text) {
+        if (!isSpilled()) {
+            String content = getBody();
+            return content != null && content.contains(text);
+        }
+        try (Reader reader = new InputStreamReader(Files.newInputStream(bodyFile), StandardCharsets.UTF_8)) {
+            // 每块保留上一块末尾 text.length() - 1 个字符，避免目标文本跨块时漏掉
+            int keep = Math.max(text.length() - 1, 0);
+            char[] buf = new char[Math.max(8192, text.length() * 2)];
+            int carried = 0;
+            int read;
+            while ((read = reader.read(buf, carried, buf.length - carried)) > 0) {
+                int length = carried + read;
+                if (new String(buf, 0, length).contains(text)) return true;
+                carried = Math.min(keep, length);
+                System.arraycopy(buf, length - carried, buf, 0, carried);
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("❌ 读取响应体临时文件失败: " + bodyFile, e);
+        }
+    }
+
+    /**
+     * 响应体字节数；直接 setBody 设置的响应返回 UTF-8 编码后的长度
+     */
+    public long getBodySize() {
+        if (bodySize >= 0) return bodySize;
+        return body == null ? 0 : body.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * 响应体是否因超出上限而落到了临时文件
+     */
+    public boolean isSpilled() {
+        return bodyFile != null && body == null;
+    }
+
+    public Path getBodyFile() {
+        return bodyFile;
+    }
+
+    /**
+     * 是否直接命中 GET 响应缓存（未发出请求，耗时为 0，不应计入时延统计）
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+    void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    public List<Attempt> getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(List<Attempt> attempts) {
+        this.attempts = List.copyOf(attempts);
+    }
+
+    /**
+     * 实际发出的请求次数（含重试），缓存命中时为 0
+     */
+    public int getAttemptCount() {
+        return attempts.size();
+    }
+
+    /**
+     * 重试带来的额外耗时：失败请求的耗时 + 退避等待时间
+     */
+    public long getRetryOverheadMs() {
+        long total = 0;
+        for (int i = 0; i < attempts.size() - 1; i++) {
+            total += attempts.get(i).durationMs() + attempts.get(i).delayMs();
+        }
+        return total;
     }
 
     public long getDurationMs() {
@@ -36,12 +271,22 @@ public class ApiResponse {
         this.durationMs = durationMs;
     }
 
+    /**
+     * 截断长文本用于日志输出
+     */
+    public static String abbreviate(String text, int maxChars) {
+        if (text == null) return null;
+        if (maxChars < 0 || text.length() <= maxChars) return text;
+        return text.substring(0, maxChars) + "...(共 " + text.length() + " 字符)";
+    }
+
     @Override
     public String toString() {
         return "ApiResponse{" +
                 "statusCode=" + statusCode +
                 ", durationMs=" + durationMs +
-                ", body='" + body + '\'' +
+                ", attempts=" + attempts.size() +
+                ", body='" + (isSpilled() ? preview(200) : getBody()) + '\'' +
                 '}';
     }
 }
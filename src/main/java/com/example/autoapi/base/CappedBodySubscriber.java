@@ -0,0 +1,131 @@
+package com.example.autoapi.base;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * CappedBodySubscriber：带内存上限的响应体接收器
+ * <p>
+ * 响应体不超过 maxBuffered 字节时保存在内存中；一旦超出，已接收的部分和后续数据都写入临时文件，
+ * 堆上不再持有整段响应。同步 send 与异步 sendAsync 共用。
+ * 接收成功后临时文件归 {@link ApiResponse} 所有，由其 close() 删除；接收失败时在这里删除。
+ */
+class CappedBodySubscriber implements HttpResponse.BodySubscriber<CappedBodySubscriber.Body> {
+
+    /**
+     * 接收结果：bytes 与 file 二选一
+     */
+    record Body(byte[] bytes, Path file, long size) {
+    }
+
+    private final long maxBuffered;
+    private final Path spillDir;
+    private final CompletableFuture<Body> result = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private FileChannel channel;
+    private Path file;
+    private long size;
+
+    /**
+     * @param maxBuffered 内存中最多缓存的字节数，&lt;= 0 表示不限制
+     * @param spillDir    临时文件目录，null 表示系统临时目录
+     */
+    CappedBodySubscriber(long maxBuffered, Path spillDir) {
+        this.maxBuffered = maxBuffered;
+        this.spillDir = spillDir;
+    }
+
+    static HttpResponse.BodyHandler<Body> handler(long maxBuffered, Path spillDir) {
+        return info -> new CappedBodySubscriber(maxBuffered, spillDir);
+    }
+
+    @Override
+    public CompletionStage<Body> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        try {
+            for (ByteBuffer item : items) {
+                int remaining = item.remaining();
+                size += remaining;
+
+                if (channel == null && maxBuffered > 0 && buffer.size() + (long) remaining > maxBuffered) {
+                    spill();
+                }
+
+                if (channel != null) {
+                    while (item.hasRemaining()) channel.write(item);
+                } else {
+                    byte[] bytes = new byte[remaining];
+                    item.get(bytes);
+                    buffer.write(bytes, 0, bytes.length);
+                }
+            }
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            if (channel != null) {
+                channel.close();
+                result.complete(new Body(null, file, size));
+            } else {
+                result.complete(new Body(buffer.toByteArray(), null, size));
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 超出上限：把已缓存的数据转存到临时文件，后续数据直接写文件
+     */
+    private void spill() throws IOException {
+        file = spillDir == null
+                ? Files.createTempFile("api-response-", ".body")
+                : Files.createTempFile(Files.createDirectories(spillDir), "api-response-", ".body");
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.wrap(buffer.toByteArray()));
+        buffer = null;
+    }
+
+    private void fail(Throwable error) {
+        try {
+            if (channel != null) channel.close();
+            if (file != null) Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // 清理失败不影响原始异常
+        }
+        result.completeExceptionally(error);
+    }
+}
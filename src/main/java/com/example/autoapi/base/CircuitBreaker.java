@@ -0,0 +1,221 @@
+package com.example.autoapi.base;
+
+import com.example.autoapi.config.EnvConfig;
+import com.example.autoapi.notifier.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * CircuitBreaker：按目标主机（scheme://host:port）统计失败的熔断器（http.circuit.*）
+ * <p>
+ * 失败指网络层异常（IOException，含超时，重试后仍失败）或状态码在 http.circuit.failureStatuses 中。以下任一条件满足时打开：
+ * <ul>
+ *     <li>连续失败达到 http.circuit.consecutiveFailures 次</li>
+ *     <li>最近 http.circuit.windowSize 次请求中，至少 minCalls 次且失败率 &gt;= errorRate</li>
+ * </ul>
+ * 打开后 http.circuit.openMs 毫秒内同一主机的请求直接抛出 {@link CircuitOpenException}，不再等待超时；
+ * 到期后进入半开状态，只放行一个探测请求：成功则关闭熔断器，失败则重新打开。
+ * 打开时通过 NotificationService 只通知一次。
+ * <p>
+ * 默认关闭：开启后目标环境抖动时，熔断期间的用例会按 http.circuit.onOpen 直接失败或跳过，而不是逐条发请求。
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private static final boolean ENABLED = EnvConfig.getBoolean("http.circuit.enabled", false);
+
+    private enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String host;
+    private final int consecutiveThreshold;
+    private final int minCalls;
+    private final double errorRate;
+    private final long openMs;
+    private final String failureStatuses;
+    private final Consumer<String> notifier;
+
+    // 按次数滑动的窗口：true 表示失败
+    private final boolean[] window;
+    private int windowCount;
+    private int windowPos;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean probeInFlight;
+    private String lastFailure = "";
+
+    private CircuitBreaker(String host) {
+        this(host,
+                EnvConfig.getInt("http.circuit.consecutiveFailures", 5),
+                EnvConfig.getInt("http.circuit.windowSize", 20),
+                EnvConfig.getInt("http.circuit.minCalls", 10),
+                Double.parseDouble(EnvConfig.getOrDefault("http.circuit.errorRate", "0.5")),
+                EnvConfig.getInt("http.circuit.openMs", 30000),
+                EnvConfig.getOrDefault("http.circuit.failureStatuses", "502,503,504"),
+                NotificationService::notifyAllChannels);
+    }
+
+    /**
+     * @param failureStatuses 逗号分隔的失败状态码
+     * @param notifier        熔断器打开时的通知方式
+     */
+    CircuitBreaker(String host, int consecutiveThreshold, int windowSize, int minCalls, double errorRate,
+                   long openMs, String failureStatuses, Consumer<String> notifier) {
+        this.host = host;
+        this.consecutiveThreshold = consecutiveThreshold;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = minCalls;
+        this.errorRate = errorRate;
+        this.openMs = openMs;
+        this.failureStatuses = "," + failureStatuses.replace(" ", "") + ",";
+        this.notifier = notifier;
+    }
+
+    /**
+     * 获取 url 所属主机的熔断器；未开启 http.circuit.enabled 时返回 null
+     */
+    static CircuitBreaker forUrl(String url) {
+        if (!ENABLED) return null;
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return null; // URL 非法，交给 buildRequest 报错
+        }
+        String host = uri.getScheme() + "://" + uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+        return breakers.computeIfAbsent(host, CircuitBreaker::new);
+    }
+
+    /**
+     * 重置所有熔断器
+     */
+    public static void resetAll() {
+        breakers.clear();
+    }
+
+    /**
+     * 发请求前调用：熔断打开时抛出 CircuitOpenException；半开时只放行一个探测请求
+     */
+    synchronized void acquire() {
+        if (state == State.CLOSED) return;
+
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN && now >= openUntil) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+            logger.info("🟡 [{}] 熔断器半开，放行一个探测请求", host);
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return;
+        }
+        throw new CircuitOpenException(host, openUntil, lastFailure);
+    }
+
+    /**
+     * 请求完成（含重试）后按状态码记录结果
+     */
+    void record(int statusCode) {
+        if (failureStatuses.contains("," + statusCode + ",")) {
+            onFailure("HTTP " + statusCode);
+        } else {
+            onSuccess();
+        }
+    }
+
+    /**
+     * 请求最终异常时记录失败；只有网络层异常（连接失败、超时等 IOException）说明主机不可用，
+     * 其他异常（如等待被中断）不计入，只归还半开状态的探测名额
+     */
+    void recordError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                onFailure(cause.toString());
+                return;
+            }
+        }
+        synchronized (this) {
+            probeInFlight = false;
+        }
+    }
+
+    private void onSuccess() {
+        boolean recovered;
+        synchronized (this) {
+            recovered = state == State.HALF_OPEN;
+            if (recovered) {
+                state = State.CLOSED;
+                probeInFlight = false;
+                resetWindow();
+            }
+            consecutiveFailures = 0;
+            slide(false);
+        }
+        if (recovered) {
+            logger.info("🟢 [{}] 探测请求成功，熔断器已关闭", host);
+        }
+    }
+
+    private void onFailure(String reason) {
+        String message = null;
+        synchronized (this) {
+            lastFailure = reason;
+            consecutiveFailures++;
+            slide(true);
+
+            if (state == State.HALF_OPEN) {
+                open();
+                logger.warn("🔴 [{}] 探测请求失败（{}），熔断器重新打开 {} ms", host, reason, openMs);
+            } else if (state == State.CLOSED && shouldOpen()) {
+                open();
+                message = "🚨 [" + host + "] 熔断器已打开：连续失败 " + consecutiveFailures + " 次，最近 "
+                        + windowCount + " 次请求失败 " + windowFailures + " 次（" + reason + "），"
+                        + openMs + " ms 内的请求将快速失败";
+            }
+        }
+
+        if (message != null) {
+            logger.error(message);
+            notifier.accept(message);
+        }
+    }
+
+    private boolean shouldOpen() {
+        if (consecutiveFailures >= consecutiveThreshold) return true;
+        return windowCount >= minCalls && windowFailures >= errorRate * windowCount;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openMs;
+        probeInFlight = false;
+    }
+
+    private void slide(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowPos]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failure;
+        if (failure) windowFailures++;
+        windowPos = (windowPos + 1) % window.length;
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowPos = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.autoapi.base;
+
+/**
+ * 熔断器处于打开状态时快速失败抛出的异常，请求没有发出
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+    private final long retryAt;
+
+    public CircuitOpenException(String host, long retryAt, String reason) {
+        super("🚧 [" + host + "] 熔断中，请求未发送: " + reason);
+        this.host = host;
+        this.retryAt = retryAt;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * 熔断器预计进入半开状态（允许探测请求）的时间戳
+     */
+    public long getRetryAt() {
+        return retryAt;
+    }
+
+    /**
+     * 在异常链中查找 CircuitOpenException，找不到返回 null
+     */
+    public static CircuitOpenException find(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof CircuitOpenException e) return e;
+            if (t.getCause() == t) break;
+        }
+        return null;
+    }
+}
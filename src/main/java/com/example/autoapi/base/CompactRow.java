@@ -0,0 +1,188 @@
+package com.example.autoapi.base;
+
+import java.util.*;
+
+/**
+ * CompactRow：共享表头结构的紧凑行数据
+ * <p>
+ * 对外仍是 {@code Map<String, String>}（迭代顺序与原 LinkedHashMap 相同），
+ * 内部只持有所属 {@link RowSchema} 的引用和一个 String[] 值数组，省去每行重复的 key 与 Entry 对象。
+ * 表头之外新增的字段放在按需创建的附加 Map 中。值不支持 null，put(key, null) 等同于移除该字段。
+ */
+public class CompactRow extends AbstractMap<String, String> {
+
+    private final RowSchema schema;
+    // null 表示该字段已被移除
+    private final String[] values;
+    private Map<String, String> extra;
+
+    CompactRow(RowSchema schema, String[] values) {
+        this.schema = schema;
+        this.values = values;
+    }
+
+    /**
+     * 复制一行：值数组与附加字段各自独立，修改副本不影响原行（表头结构仍共享）
+     */
+    public CompactRow copy() {
+        CompactRow copy = new CompactRow(schema, values.clone());
+        if (extra != null) copy.extra = new LinkedHashMap<>(extra);
+        return copy;
+    }
+
+    @Override
+    public String get(Object key) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) return values[slot];
+        return extra == null ? null : extra.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) return values[slot] != null;
+        return extra != null && extra.containsKey(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) {
+            String old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        if (extra == null) extra = new LinkedHashMap<>();
+        return extra.put(key, value);
+    }
+
+    @Override
+    public String remove(Object key) {
+        int slot = schema.slotOf(key);
+        if (slot >= 0) {
+            String old = values[slot];
+            values[slot] = null;
+            return old;
+        }
+        return extra == null ? null : extra.remove(key);
+    }
+
+    @Override
+    public int size() {
+        int size = extra == null ? 0 : extra.size();
+        for (String value : values) {
+            if (value != null) size++;
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactRow.this.size();
+            }
+        };
+    }
+
+    /**
+     * 先按表头顺序遍历槽位，再遍历附加字段
+     */
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+
+        private int next = advance(0);
+        private int last = -1;
+        private boolean lastFromExtra;
+        private Iterator<Entry<String, String>> extraIterator;
+
+        private int advance(int from) {
+            int i = from;
+            while (i < values.length && values[i] == null) i++;
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < values.length) return true;
+            if (extra == null) return false;
+            if (extraIterator == null) extraIterator = extra.entrySet().iterator();
+            return extraIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (next < values.length) {
+                last = next;
+                next = advance(next + 1);
+                return new SlotEntry(last);
+            }
+            if (!hasNext()) throw new NoSuchElementException();
+            last = -1;
+            Entry<String, String> entry = extraIterator.next();
+            lastFromExtra = true;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (last >= 0) {
+                values[last] = null;
+                last = -1;
+            } else if (lastFromExtra) {
+                extraIterator.remove();
+                lastFromExtra = false;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private class SlotEntry implements Entry<String, String> {
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.keys[slot];
+        }
+
+        @Override
+        public String getValue() {
+            return values[slot];
+        }
+
+        @Override
+        public String setValue(String value) {
+            String old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> e
+                    && Objects.equals(getKey(), e.getKey())
+                    && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.autoapi.base;
+
+import com.example.autoapi.config.EnvConfig;
+import com.example.autoapi.replay.RecordStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ConnectionWarmer：套件开始前预热到各目标主机的连接（http.warmup.*）
+ * <p>
+ * 对每个主机先发一个请求完成 DNS、TCP / TLS 握手（以及 HTTP/2 协商），成功后再并发发出
+ * http.warmup.connections 个请求，让 ApiClient 的连接池中留下对应数量的空闲连接，
+ * 第一条用例记录的耗时就不再包含建连开销。
+ * <p>
+ * 直接使用 ApiClient 的 HttpClient，不经过重试、熔断与录制；预热失败只记录告警。回放模式下跳过。
+ * 预热会向目标环境发送额外请求，默认关闭，需显式开启 http.warmup.enabled。
+ */
+public class ConnectionWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+    /**
+     * 是否需要预热：开启了 http.warmup.enabled（默认关闭）且不是回放模式；调用方据此决定是否收集目标主机
+     */
+    public static boolean isEnabled() {
+        return EnvConfig.getBoolean("http.warmup.enabled", false) && !RecordStore.isReplaying();
+    }
+
+    /**
+     * 预热给定的主机
+     *
+     * @param origins scheme://host[:port]，重复项自动去重
+     */
+    public static void warmUp(Collection<String> origins) {
+        if (!isEnabled() || origins.isEmpty()) return;
+
+        int connections = Math.max(1, EnvConfig.getInt("http.warmup.connections", 4));
+        String method = EnvConfig.getOrDefault("http.warmup.method", "HEAD").toUpperCase();
+        String path = EnvConfig.getOrDefault("http.warmup.path", "/");
+        Duration timeout = Duration.ofMillis(EnvConfig.getInt("http.warmup.timeoutMs", 3000));
+
+        HttpClient client = ApiClient.httpClient();
+        Set<String> distinct = new LinkedHashSet<>(origins);
+        long start = System.currentTimeMillis();
+
+        List<CompletableFuture<Void>> hosts = new ArrayList<>();
+        for (String origin : distinct) {
+            URI uri;
+            try {
+                uri = URI.create(origin + (path.startsWith("/") ? path : "/" + path));
+            } catch (IllegalArgumentException e) {
+                logger.warn("⚠️ 预热地址非法，已跳过: {}", origin);
+                continue;
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .method(method, HttpRequest.BodyPublishers.noBody())
+                    .timeout(timeout)
+                    .build();
+
+            // 第一个请求完成握手 / 协议协商后再并发建连（其中一个会复用第一个连接）；主机不可达时不再重复尝试
+            hosts.add(send(client, request, origin)
+                    .thenCompose(ok -> {
+                        if (!ok) return CompletableFuture.completedFuture(null);
+                        List<CompletableFuture<Boolean>> rest = new ArrayList<>();
+                        for (int i = 0; i < connections; i++) rest.add(send(client, request, origin));
+                        return CompletableFuture.allOf(rest.toArray(new CompletableFuture<?>[0]));
+                    }));
+        }
+
+        CompletableFuture.allOf(hosts.toArray(new CompletableFuture<?>[0])).join();
+        logger.info("🔥 连接预热完成: {} 个主机 × {} 个连接，耗时 {} ms", distinct.size(), connections, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 从 URL 中取出 scheme://host[:port]，无法解析时返回 null
+     */
+    public static String originOf(String url) {
+        try {
+            URI uri = URI.create(url.trim());
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) return null;
+            return uri.getScheme().toLowerCase() + "://" + uri.getRawAuthority();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static CompletableFuture<Boolean> send(HttpClient client, HttpRequest request, String origin) {
+        long start = System.currentTimeMillis();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        logger.warn("⚠️ 预热 {} 失败: {}", origin, cause.toString());
+                        return false;
+                    }
+                    logger.debug("🔥 预热 {} -> {}（{} ms）", origin, response.statusCode(), System.currentTimeMillis() - start);
+                    return true;
+                });
+    }
+}
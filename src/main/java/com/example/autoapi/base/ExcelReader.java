@@ -1,5 +1,6 @@
 package com.example.autoapi.base;
 
+import com.example.autoapi.config.EnvConfig;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
@@ -29,36 +30,28 @@ public class ExcelReader {
                 Row headerRow = sheet.getRow(0);
                 if (headerRow == null) continue;
 
-                int colCount = headerRow.getLastCellNum();
+                int colCount = Math.max(headerRow.getLastCellNum(), 0);
+                String[] headers = new String[colCount];
+                for (int j = 0; j < colCount; j++) {
+                    headers[j] = formatter.formatCellValue(headerRow.getCell(j)).trim();
+                }
+                RowSchema schema = RowSchema.of(headers);
+                String[] values = new String[colCount];
 
                 for (int i = 1; i <= sheet.getLastRowNum(); i++) {
                     Row row = sheet.getRow(i);
                     if (row == null) continue;
 
-                    Map<String, String> rowData = new LinkedHashMap<>();
-                    boolean isEmptyRow = true;
-
                     for (int j = 0; j < colCount; j++) {
-                        Cell headerCell = headerRow.getCell(j);
-                        Cell cell = row.getCell(j);
-
-                        String header = formatter.formatCellValue(headerCell).trim();
-                        String value = formatter.formatCellValue(cell).trim();
-
-                        if (!header.isEmpty()) {
-                            rowData.put(header, value);
-                        }
-
-                        if (!value.isEmpty()) {
-                            isEmptyRow = false;
-                        }
+                        values[j] = formatter.formatCellValue(row.getCell(j)).trim();
                     }
 
-                    if (!isEmptyRow && !rowData.isEmpty()) {
-                        rowData.put("rowIndex", String.valueOf(i + 1));
+                    CompactRow rowData = schema.toRow(values, i + 1);
+                    if (rowData != null) {
                         sheetData.add(rowData);
                     }
                 }
+                schema.releasePool();
 
                 allSheetData.put(sheetName, sheetData);
             }
@@ -73,12 +66,37 @@ public class ExcelReader {
 
     /**
      * 读取指定 Sheet 页的数据
+     * 默认经 WorkbookCache 缓存（同一文件每个 Sheet 只解析一次），缓存未命中时与关闭缓存时的读取方式相同：
+     * 有可用的测试计划快照时直接读快照，否则配置 excel.read.mode=stream 时走 SAX 流式解析，只解析目标 Sheet
      *
      * @param filePath  Excel 文件路径
      * @param sheetName Sheet 名称
      * @return List<Map<String, String>> 表示每一行数据
      */
     public static List<Map<String, String>> read(String filePath, String sheetName) {
+        if (EnvConfig.getBoolean("excel.cache.enabled", true)) {
+            return WorkbookCache.getSheet(filePath, sheetName);
+        }
+        return load(filePath, sheetName);
+    }
+
+    /**
+     * 是否按 excel.read.mode=dom 整本解析
+     */
+    static boolean isDomMode(String filePath) {
+        return !TestPlanSnapshot.shouldUse(filePath) && !"stream".equalsIgnoreCase(EnvConfig.get("excel.read.mode"));
+    }
+
+    /**
+     * 不经缓存，按配置的读取方式解析指定 Sheet
+     */
+    static List<Map<String, String>> load(String filePath, String sheetName) {
+        if (TestPlanSnapshot.shouldUse(filePath)) {
+            return TestPlanSnapshot.readSheet(filePath, sheetName);
+        }
+        if ("stream".equalsIgnoreCase(EnvConfig.get("excel.read.mode"))) {
+            return StreamingExcelReader.read(filePath, sheetName);
+        }
         return readAllSheets(filePath).getOrDefault(sheetName, new ArrayList<>());
     }
 }
@@ -0,0 +1,179 @@
+package com.example.autoapi.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * ExcelRowIterator：边解析边消费的行迭代器
+ * <p>
+ * 后台线程用 {@link StreamingExcelReader} 解析 Sheet，把通过过滤条件的行放入有界队列，
+ * 调用方拿到第一行即可开始执行，无需等待整个 Sheet 读完。
+ * 解析前会先把文件复制为临时快照，避免执行过程中 ExcelWriter 回写同一文件导致读到损坏的数据。
+ * <p>
+ * 读完或读取失败后解析线程自行退出；调用方提前放弃迭代时需调用 {@link #close()}，
+ * 未关闭的迭代器由 {@link #closeAll()}（套件结束时）或 JVM 退出前的兜底清理统一关闭。
+ */
+public class ExcelRowIterator implements Iterator<Map<String, String>>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelRowIterator.class);
+
+    // 队列结束标记
+    private static final Object END = new Object();
+
+    // 尚未读完也未关闭的迭代器
+    private static final Set<ExcelRowIterator> open = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ExcelRowIterator::closeAll, "excel-stream-cleanup"));
+    }
+
+    private final BlockingQueue<Object> queue;
+    private final Thread producer;
+    private volatile boolean closed;
+
+    private Object next;
+    private boolean finished;
+
+    /**
+     * @param filePath   Excel 文件路径
+     * @param sheetName  Sheet 名称
+     * @param filter     行过滤条件（在解析线程中逐行判断）
+     * @param bufferSize 预读队列容量
+     */
+    public ExcelRowIterator(String filePath, String sheetName, Predicate<Map<String, String>> filter, int bufferSize) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(bufferSize, 1));
+        this.producer = new Thread(() -> produce(filePath, sheetName, filter), "excel-stream-" + sheetName);
+        this.producer.setDaemon(true);
+        open.add(this);
+        this.producer.start();
+    }
+
+    private void produce(String filePath, String sheetName, Predicate<Map<String, String>> filter) {
+        Path snapshot = null;
+        Object last = END;
+        try {
+            snapshot = Files.createTempFile("excel-stream-", ".xlsx");
+            Files.copy(Paths.get(filePath), snapshot, StandardCopyOption.REPLACE_EXISTING);
+
+            StreamingExcelReader.forEachRow(snapshot.toString(), sheetName, row -> {
+                if (filter.test(row)) enqueue(row);
+            });
+        } catch (Throwable e) {
+            // 消费方关闭导致的中断不算读取失败
+            if (!closed) last = e;
+        } finally {
+            if (snapshot != null) {
+                try {
+                    Files.deleteIfExists(snapshot);
+                } catch (Exception e) {
+                    logger.warn("⚠️ 临时快照删除失败: {}", snapshot);
+                }
+            }
+            try {
+                enqueue(last);
+            } catch (StopProducing ignored) {
+                // 消费方已关闭
+            }
+        }
+    }
+
+    private void enqueue(Object item) {
+        try {
+            while (!queue.offer(item, 200, TimeUnit.MILLISECONDS)) {
+                if (closed) throw new StopProducing();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StopProducing();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) return false;
+        if (next != null) return true;
+
+        try {
+            next = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("❌ 等待 Excel 行数据时被中断", e);
+        }
+
+        if (next == END) {
+            finished = true;
+            open.remove(this);
+            next = null;
+            return false;
+        }
+        if (next instanceof Throwable error) {
+            finished = true;
+            open.remove(this);
+            next = null;
+            throw new RuntimeException("❌ Excel 行数据读取失败: " + error.getMessage(), error);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, String> next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Map<String, String> row = (Map<String, String>) next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * 提前结束时调用，通知后台解析线程退出
+     */
+    @Override
+    public void close() {
+        open.remove(this);
+        closed = true;
+        finished = true;
+        producer.interrupt();
+        queue.clear();
+    }
+
+    /**
+     * 关闭所有未读完的迭代器，并等待解析线程删除临时快照后退出
+     */
+    public static void closeAll() {
+        for (ExcelRowIterator iterator : open) {
+            iterator.close();
+            try {
+                iterator.producer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 用于在消费方关闭后中断 SAX 解析
+     */
+    private static class StopProducing extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StopProducing() {
+            super(null, null, false, false);
+        }
+    }
+}
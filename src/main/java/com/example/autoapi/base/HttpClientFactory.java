@@ -0,0 +1,152 @@
+package com.example.autoapi.base;
+
+import com.example.autoapi.config.EnvConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HttpClientFactory：根据 EnvConfig 构建 ApiClient 使用的 HttpClient
+ * <p>
+ * 支持的配置（留空则使用 JDK 默认值）：
+ * <pre>
+ * http.version          HTTP_1_1 / HTTP_2（也可写 1.1 / 2）
+ * http.connectTimeoutMs 建连超时（毫秒）
+ * http.executor         default / virtual / cached / fixed:N
+ * http.redirect         NEVER / NORMAL / ALWAYS
+ * http.proxy            host:port
+ * http.pool.size        连接池最大空闲连接数（jdk.httpclient.connectionPoolSize，0 为不限）
+ * http.keepAliveSeconds 空闲连接保活时间（jdk.httpclient.keepalive.timeout）
+ * http.maxStreams       HTTP/2 单连接最大并发流（jdk.httpclient.maxstreams）
+ * </pre>
+ * 连接池相关参数是 JDK HttpClient 的系统属性，只在第一次创建 HttpClient 前设置才生效；
+ * 启动参数中已通过 -D 指定的值优先。
+ */
+public class HttpClientFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientFactory.class);
+
+    /**
+     * 按配置创建 HttpClient
+     */
+    public static HttpClient create() {
+        applyPoolProperties();
+
+        HttpClient.Builder builder = HttpClient.newBuilder();
+        StringBuilder summary = new StringBuilder();
+
+        String version = EnvConfig.get("http.version");
+        if (!version.isEmpty()) {
+            builder.version(parseVersion(version));
+            summary.append(" version=").append(version);
+        }
+
+        int connectTimeoutMs = EnvConfig.getInt("http.connectTimeoutMs", 0);
+        if (connectTimeoutMs > 0) {
+            builder.connectTimeout(Duration.ofMillis(connectTimeoutMs));
+            summary.append(" connectTimeoutMs=").append(connectTimeoutMs);
+        }
+
+        String redirect = EnvConfig.get("http.redirect");
+        if (!redirect.isEmpty()) {
+            builder.followRedirects(HttpClient.Redirect.valueOf(redirect.toUpperCase()));
+            summary.append(" redirect=").append(redirect);
+        }
+
+        String proxy = EnvConfig.get("http.proxy");
+        if (!proxy.isEmpty()) {
+            int idx = proxy.lastIndexOf(':');
+            if (idx <= 0) throw new IllegalArgumentException("❌ http.proxy 格式应为 host:port: " + proxy);
+            builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.substring(0, idx), Integer.parseInt(proxy.substring(idx + 1)))));
+            summary.append(" proxy=").append(proxy);
+        }
+
+        String executor = EnvConfig.get("http.executor");
+        if (!executor.isEmpty() && !"default".equalsIgnoreCase(executor)) {
+            builder.executor(newExecutor(executor, "http-client"));
+            summary.append(" executor=").append(executor);
+        }
+
+        logger.info("🌐 HttpClient 初始化完成:{}", summary.length() == 0 ? " JDK 默认配置" : summary);
+        return builder.build();
+    }
+
+    /**
+     * 按描述创建线程池：virtual / cached / fixed:N
+     * virtual 需要 JDK 21+，低版本运行时自动退化为 cached 线程池
+     *
+     * @param spec       线程池描述
+     * @param namePrefix 线程名前缀（虚拟线程不使用）
+     */
+    public static ExecutorService newExecutor(String spec, String namePrefix) {
+        String s = spec.trim().toLowerCase();
+        if (s.equals("virtual")) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) return virtual;
+            logger.warn("⚠️ 当前 JDK 不支持虚拟线程，退化为 cached 线程池");
+            return Executors.newCachedThreadPool(daemonFactory(namePrefix));
+        }
+        if (s.equals("cached")) {
+            return Executors.newCachedThreadPool(daemonFactory(namePrefix));
+        }
+        if (s.startsWith("fixed:")) {
+            int size = Integer.parseInt(s.substring(6).trim());
+            return Executors.newFixedThreadPool(size, daemonFactory(namePrefix));
+        }
+        throw new IllegalArgumentException("❌ 不支持的线程池配置: " + spec + "（可选 virtual / cached / fixed:N）");
+    }
+
+    /**
+     * 通过反射调用 Executors.newVirtualThreadPerTaskExecutor()，项目仍以 JDK 17 编译
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, namePrefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 兼容 HTTP_1_1 / HTTP/1.1 / 1.1 / HTTP_2 / 2 等写法
+     */
+    private static HttpClient.Version parseVersion(String version) {
+        String v = version.toUpperCase().replace("HTTP", "").replaceAll("[/_.]", "");
+        return switch (v) {
+            case "11" -> HttpClient.Version.HTTP_1_1;
+            case "2" -> HttpClient.Version.HTTP_2;
+            default -> throw new IllegalArgumentException("❌ 不支持的 http.version: " + version);
+        };
+    }
+
+    private static void applyPoolProperties() {
+        setIfAbsent("jdk.httpclient.connectionPoolSize", EnvConfig.get("http.pool.size"));
+        setIfAbsent("jdk.httpclient.keepalive.timeout", EnvConfig.get("http.keepAliveSeconds"));
+        setIfAbsent("jdk.httpclient.maxstreams", EnvConfig.get("http.maxStreams"));
+    }
+
+    private static void setIfAbsent(String property, String value) {
+        if (!value.isEmpty() && System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.autoapi.base;
+
+import com.example.autoapi.config.EnvConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ResponseCache：GET 请求的响应缓存（http.cache.enabled=true 时生效）
+ * <p>
+ * 以「解析后的 URL + http.cache.varyHeaders 中列出的请求头」为 key，LRU 淘汰，
+ * 同时受条数（http.cache.maxEntries）和字节数（http.cache.maxBytes）限制。
+ * <ul>
+ *     <li>新鲜期内（响应 Cache-Control: max-age，否则 http.cache.ttlMs）直接返回缓存，不发请求</li>
+ *     <li>过期后带 If-None-Match / If-Modified-Since 重新验证，服务端返回 304 时沿用缓存的响应体</li>
+ *     <li>请求头带 Cache-Control: no-cache / no-store 时绕过缓存；响应带 no-store 时不缓存</li>
+ * </ul>
+ * 只缓存 200 且未落盘的响应。
+ */
+class ResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age\\s*=\\s*(\\d+)");
+
+    private static final boolean ENABLED = EnvConfig.getBoolean("http.cache.enabled", false);
+    private static final int MAX_ENTRIES = EnvConfig.getInt("http.cache.maxEntries", 1000);
+    private static final long MAX_BYTES = EnvConfig.getInt("http.cache.maxBytes", 32 * 1024 * 1024);
+    private static final long TTL_MS = EnvConfig.getInt("http.cache.ttlMs", 0);
+    private static final String[] VARY_HEADERS = EnvConfig.getOrDefault("http.cache.varyHeaders", "Authorization,Accept,Accept-Language").split("\\s*,\\s*");
+
+    // accessOrder=true 的 LinkedHashMap 即 LRU，所有访问都在 synchronized 方法内
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long totalBytes;
+
+    /**
+     * 缓存条目
+     */
+    static final class Entry {
+        private final int statusCode;
+        private final Map<String, String> headers;
+        private final String body;
+        private final long size;
+        private final String etag;
+        private final String lastModified;
+        private final long freshMs;
+        private volatile long validatedAt;
+
+        private Entry(ApiResponse response, long freshMs) {
+            this.statusCode = response.getStatusCode();
+            this.headers = response.getHeaders();
+            this.body = response.getBody();
+            this.size = response.getBodySize();
+            this.etag = header(headers, "ETag");
+            this.lastModified = header(headers, "Last-Modified");
+            this.freshMs = freshMs;
+            this.validatedAt = System.currentTimeMillis();
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() - validatedAt < freshMs;
+        }
+
+        boolean canRevalidate() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * 在原请求头基础上加上条件请求头
+         */
+        Map<String, String> conditionalHeaders(Map<String, String> requestHeaders) {
+            Map<String, String> conditional = new HashMap<>(requestHeaders);
+            if (etag != null) conditional.put("If-None-Match", etag);
+            if (lastModified != null) conditional.put("If-Modified-Since", lastModified);
+            return conditional;
+        }
+
+        ApiResponse toResponse(long durationMs) {
+            ApiResponse response = new ApiResponse();
+            response.setStatusCode(statusCode);
+            response.setHeaders(new HashMap<>(headers));
+            response.setBody(body);
+            response.setDurationMs(durationMs);
+            return response;
+        }
+
+        /**
+         * 新鲜期内直接返回：未发出请求，耗时为 0 并标记为缓存命中
+         */
+        ApiResponse toCacheHit() {
+            ApiResponse response = toResponse(0);
+            response.setCacheHit(true);
+            return response;
+        }
+    }
+
+    /**
+     * 本次请求是否走缓存：仅 GET，且请求头没有要求绕过缓存
+     */
+    static boolean applies(String method, Map<String, String> headers) {
+        if (!ENABLED || !"GET".equalsIgnoreCase(method)) return false;
+        String cacheControl = header(headers, "Cache-Control");
+        return cacheControl == null || !(cacheControl.contains("no-cache") || cacheControl.contains("no-store"));
+    }
+
+    static synchronized Entry lookup(String url, Map<String, String> headers) {
+        return entries.get(keyOf(url, headers));
+    }
+
+    /**
+     * 根据实际响应更新缓存并返回给调用方的响应
+     * 304 且有缓存：刷新验证时间，返回缓存的响应体；200：写入缓存；其他状态码原样返回
+     */
+    static ApiResponse complete(String url, Map<String, String> headers, Entry cached, ApiResponse response) {
+        if (response.getStatusCode() == 304 && cached != null) {
+            cached.validatedAt = System.currentTimeMillis();
+            logger.debug("♻️ 缓存重新验证通过(304): {}", url);
+            ApiResponse revalidated = cached.toResponse(response.getDurationMs());
+            revalidated.setAttempts(response.getAttempts());
+            return revalidated;
+        }
+
+        if (response.getStatusCode() == 200 && !response.isSpilled()) {
+            store(keyOf(url, headers), response);
+        }
+        return response;
+    }
+
+    /**
+     * 清空缓存
+     */
+    static synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    private static void store(String key, ApiResponse response) {
+        String cacheControl = header(response.getHeaders(), "Cache-Control");
+        if (cacheControl != null && cacheControl.contains("no-store")) return;
+
+        long freshMs = TTL_MS;
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) freshMs = Long.parseLong(matcher.group(1)) * 1000L;
+            if (cacheControl.contains("no-cache")) freshMs = 0;
+        }
+
+        Entry entry = new Entry(response, freshMs);
+        // 既不新鲜也无法重新验证的响应缓存了也用不上
+        if (entry.freshMs <= 0 && !entry.canRevalidate()) return;
+        if (entry.size > MAX_BYTES) return;
+
+        synchronized (ResponseCache.class) {
+            Entry old = entries.put(key, entry);
+            if (old != null) totalBytes -= old.size;
+            totalBytes += entry.size;
+
+            Iterator<Entry> it = entries.values().iterator();
+            while ((entries.size() > MAX_ENTRIES || totalBytes > MAX_BYTES) && it.hasNext()) {
+                Entry eldest = it.next();
+                it.remove();
+                totalBytes -= eldest.size;
+            }
+        }
+    }
+
+    private static String keyOf(String url, Map<String, String> headers) {
+        StringBuilder key = new StringBuilder(url);
+        for (String name : VARY_HEADERS) {
+            String value = header(headers, name);
+            if (value != null) key.append('\n').append(name).append(": ").append(value);
+        }
+        return key.toString();
+    }
+
+    /**
+     * 请求头 / 响应头名大小写不敏感（HTTP/2 响应头均为小写）
+     */
+    private static String header(Map<String, String> headers, String name) {
+        if (headers == null) return null;
+        String value = headers.get(name);
+        if (value != null) return value;
+        for (Map.Entry<String, String> e : headers.entrySet()) {
+            if (e.getKey().equalsIgnoreCase(name)) return e.getValue();
+        }
+        return null;
+    }
+}
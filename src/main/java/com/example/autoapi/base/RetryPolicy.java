@@ -0,0 +1,123 @@
+package com.example.autoapi.base;
+
+import com.example.autoapi.config.EnvConfig;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RetryPolicy：传输层重试策略（http.retry.*）
+ * <p>
+ * 与 RetryAnalyzer 重跑整个测试方法不同，这里只在 ApiClient 内部重发单个请求：
+ * <ul>
+ *     <li>建连失败 / 建连超时：请求未发出，任何方法都可以重试</li>
+ *     <li>读超时、连接被重置、http.retry.statuses 中的状态码（默认 429 与 5xx，5xx 不含 501 / 505）：仅幂等方法重试，
+ *     http.retry.nonIdempotent=true 时 POST / PATCH 也重试</li>
+ * </ul>
+ * 退避时间为指数退避 + 全抖动：random(0, min(maxBackoffMs, backoffMs * 2^(n-1)))；
+ * 响应带 Retry-After 时以其为准（不超过 maxRetryAfterMs）。
+ */
+final class RetryPolicy {
+
+    private static final Set<String> IDEMPOTENT = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+
+    static final RetryPolicy DEFAULT = new RetryPolicy(
+            Math.max(1, EnvConfig.getInt("http.retry.maxAttempts", 1)),
+            EnvConfig.getInt("http.retry.backoffMs", 200),
+            EnvConfig.getInt("http.retry.maxBackoffMs", 5000),
+            EnvConfig.getInt("http.retry.maxRetryAfterMs", 30000),
+            EnvConfig.getOrDefault("http.retry.statuses", "429,5xx"),
+            EnvConfig.getBoolean("http.retry.nonIdempotent", false));
+
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final long maxRetryAfterMs;
+    private final String statuses;
+    private final boolean nonIdempotent;
+
+    RetryPolicy(int maxAttempts, long backoffMs, long maxBackoffMs, long maxRetryAfterMs, String statuses, boolean nonIdempotent) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.maxRetryAfterMs = maxRetryAfterMs;
+        this.statuses = "," + statuses.replace(" ", "").toLowerCase() + ",";
+        this.nonIdempotent = nonIdempotent;
+    }
+
+    /**
+     * 第 attempt 次请求收到状态码 status 后是否重试
+     */
+    boolean shouldRetry(String method, int attempt, int status) {
+        return attempt < maxAttempts && isIdempotent(method) && isRetryableStatus(status);
+    }
+
+    /**
+     * 第 attempt 次请求抛出 error 后是否重试
+     */
+    boolean shouldRetry(String method, int attempt, Throwable error) {
+        if (attempt >= maxAttempts) return false;
+        // 建连阶段失败，请求没有到达服务端
+        if (error instanceof HttpConnectTimeoutException || error instanceof ConnectException) return true;
+        // 读超时（HttpTimeoutException）、连接被重置、连接提前关闭等
+        return error instanceof IOException && isIdempotent(method);
+    }
+
+    /**
+     * 第 attempt 次失败后等待多久再发下一次
+     *
+     * @param responseHeaders 失败响应的响应头（异常时为 null），用于读取 Retry-After
+     */
+    long delayMs(int attempt, Map<String, String> responseHeaders) {
+        long retryAfter = retryAfterMs(responseHeaders);
+        if (retryAfter >= 0) return Math.min(retryAfter, maxRetryAfterMs);
+
+        long ceiling = backoffMs << Math.min(attempt - 1, 20);
+        ceiling = Math.min(ceiling, maxBackoffMs);
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private boolean isIdempotent(String method) {
+        return nonIdempotent || IDEMPOTENT.contains(method.toUpperCase());
+    }
+
+    private boolean isRetryableStatus(int status) {
+        if (statuses.contains("," + status + ",")) return true;
+        // 501 / 505 表示服务端不支持该请求（回放服务找不到录制时也返回 501），重试没有意义
+        return status != 501 && status != 505 && statuses.contains("," + status / 100 + "xx,");
+    }
+
+    /**
+     * Retry-After 支持秒数与 HTTP 日期两种格式，无法解析时返回 -1
+     */
+    private static long retryAfterMs(Map<String, String> headers) {
+        if (headers == null) return -1;
+        String value = null;
+        for (Map.Entry<String, String> e : headers.entrySet()) {
+            if (e.getKey().equalsIgnoreCase("Retry-After")) {
+                value = e.getValue().trim();
+                break;
+            }
+        }
+        if (value == null || value.isEmpty()) return -1;
+
+        try {
+            return Long.parseLong(value) * 1000L;
+        } catch (NumberFormatException ignored) {
+            // 不是秒数，按 HTTP 日期解析
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
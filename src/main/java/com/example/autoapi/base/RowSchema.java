@@ -0,0 +1,159 @@
+package com.example.autoapi.base;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RowSchema：一个 Sheet 内所有行共享的「列名 -> 槽位」结构
+ * <p>
+ * 由表头行构建，配合 {@link CompactRow} 使用：每行只保存 String[] 值数组，
+ * 列名与索引只存一份。同时维护一个有上限的字符串去重池，
+ * 让 method、url、headers 等大量重复的短值在整个 Sheet 中只保留一个实例。
+ * <p>
+ * 构建行的过程（{@link #toRow}）非线程安全，应由单个读取线程调用；读完后调用 {@link #releasePool()}。
+ */
+public class RowSchema {
+
+    public static final String ROW_INDEX = "rowIndex";
+
+    // 只对较短的值去重，超长的 body/response 基本不会重复
+    private static final int MAX_POOLED_LENGTH = 256;
+    private static final int MAX_POOL_SIZE = 4096;
+
+    // 槽位顺序与 LinkedHashMap 插入顺序一致
+    final String[] keys;
+    private final Map<String, Integer> slots;
+
+    // 每个槽位取值的源列号；rowIndex 槽位为 -1
+    private final int[] sourceColumns;
+    private final int rowIndexSlot;
+    private final int columnCount;
+
+    private Map<String, String> pool = new HashMap<>();
+
+    private RowSchema(String[] keys, Map<String, Integer> slots, int[] sourceColumns, int rowIndexSlot, int columnCount) {
+        this.keys = keys;
+        this.slots = slots;
+        this.sourceColumns = sourceColumns;
+        this.rowIndexSlot = rowIndexSlot;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * 根据表头构建 Schema（表头已 trim，空表头的列不产出字段；重名时取最后一列的值）
+     *
+     * @param headers 列号 -> 列名
+     */
+    public static RowSchema of(String[] headers) {
+        LinkedHashMap<String, Integer> columnsByKey = new LinkedHashMap<>();
+        for (int j = 0; j < headers.length; j++) {
+            String header = headers[j] == null ? "" : headers[j];
+            if (!header.isEmpty()) {
+                columnsByKey.put(header, j);
+            }
+        }
+        boolean hasData = !columnsByKey.isEmpty();
+        if (hasData) {
+            columnsByKey.putIfAbsent(ROW_INDEX, -1);
+        }
+
+        String[] keys = new String[columnsByKey.size()];
+        int[] sourceColumns = new int[keys.length];
+        Map<String, Integer> slots = new HashMap<>(keys.length * 2);
+        int rowIndexSlot = -1;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : columnsByKey.entrySet()) {
+            keys[i] = entry.getKey();
+            sourceColumns[i] = entry.getValue();
+            slots.put(entry.getKey(), i);
+            if (ROW_INDEX.equals(entry.getKey())) {
+                rowIndexSlot = i;
+                sourceColumns[i] = -1;
+            }
+            i++;
+        }
+        return new RowSchema(keys, slots, sourceColumns, rowIndexSlot, headers.length);
+    }
+
+    /**
+     * 表头列数（判断空行时只看这些列）
+     */
+    public int columnCount() {
+        return columnCount;
+    }
+
+    /**
+     * 组装一行数据
+     *
+     * @param columnValues 列号 -> 已 trim 的单元格文本（可为 null 或长度不足，视为空串）
+     * @param rowNumber    Excel 行号（从 1 开始）
+     * @return 行数据；整行为空或表头没有有效列时返回 null
+     */
+    public CompactRow toRow(String[] columnValues, int rowNumber) {
+        if (keys.length == 0) return null;
+
+        boolean isEmptyRow = true;
+        for (int j = 0; j < columnCount; j++) {
+            String value = j < columnValues.length ? columnValues[j] : null;
+            if (value != null && !value.isEmpty()) {
+                isEmptyRow = false;
+                break;
+            }
+        }
+        if (isEmptyRow) return null;
+
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            int col = sourceColumns[i];
+            String value = col >= 0 && col < columnValues.length ? columnValues[col] : null;
+            values[i] = dedup(value == null ? "" : value);
+        }
+        values[rowIndexSlot] = String.valueOf(rowNumber);
+        return new CompactRow(this, values);
+    }
+
+    /**
+     * 直接用已组装好的槽位值构建行（值数组顺序与 {@link #keys()} 一致，不做去重与空行判断）
+     */
+    public CompactRow newRow(String[] slotValues) {
+        if (slotValues.length != keys.length) {
+            throw new IllegalArgumentException("❌ 行数据列数与表头不一致: " + slotValues.length + " != " + keys.length);
+        }
+        return new CompactRow(this, slotValues);
+    }
+
+    /**
+     * 所有字段名（按槽位顺序，含 rowIndex）
+     */
+    public String[] keys() {
+        return keys.clone();
+    }
+
+    /**
+     * 整个 Sheet 读取完毕后释放去重池，避免行数据长期持有它
+     */
+    public void releasePool() {
+        pool = null;
+    }
+
+    int slotOf(Object key) {
+        Integer slot = slots.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * 重复值去重：池已释放、池满或值过长时直接返回原值
+     */
+    String dedup(String value) {
+        if (value.isEmpty()) return "";
+        if (pool == null || value.length() > MAX_POOLED_LENGTH) return value;
+
+        String pooled = pool.get(value);
+        if (pooled != null) return pooled;
+        if (pool.size() < MAX_POOL_SIZE) {
+            pool.put(value, value);
+        }
+        return value;
+    }
+}
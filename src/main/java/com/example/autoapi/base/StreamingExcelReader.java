@@ -0,0 +1,163 @@
+package com.example.autoapi.base;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * StreamingExcelReader：基于 POI XSSF 事件模型（SAX）的流式读取器
+ * <p>
+ * 只解析指定 Sheet 的 XML，逐行回调，不构建整个 XSSFWorkbook，
+ * 内存占用与工作簿大小无关。行数据格式与 {@link ExcelReader#read(String, String)} 保持一致：
+ * 第一行为表头，值去除首尾空格，空行跳过，并附加 rowIndex（Excel 行号，从 1 开始）。
+ * 每行以 {@link CompactRow} 返回，同一 Sheet 的行共享一个 {@link RowSchema}。
+ */
+public class StreamingExcelReader {
+
+    /**
+     * 流式读取指定 Sheet，每解析完一行就回调一次
+     *
+     * @param filePath    Excel 文件路径
+     * @param sheetName   Sheet 名称
+     * @param rowConsumer 行数据回调
+     * @return 是否找到该 Sheet
+     */
+    public static boolean forEachRow(String filePath, String sheetName, Consumer<Map<String, String>> rowConsumer) {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheetStream = sheets.next()) {
+                    if (!sheetName.equals(sheets.getSheetName())) continue;
+
+                    // formulasNotResults=true：与 DataFormatter.formatCellValue(cell) 对公式单元格的输出保持一致
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(
+                            styles, sharedStrings, new RowHandler(rowConsumer), new DataFormatter(), true));
+                    parser.parse(new InputSource(sheetStream));
+                    return true;
+                }
+            }
+            return false;
+
+        } catch (Exception e) {
+            throw new RuntimeException("❌ Excel流式读取失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按工作簿顺序列出所有 Sheet 名称（只读取 workbook.xml，不解析 Sheet 内容）
+     */
+    public static List<String> sheetNames(String filePath) {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            List<String> names = new ArrayList<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            while (sheets.hasNext()) {
+                // 只需要名称，Sheet 内容不读取，流直接关闭
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+            return names;
+        } catch (Exception e) {
+            throw new RuntimeException("❌ Excel流式读取失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取指定 Sheet 的全部行（内部仍为流式解析，只是把结果收集到 List）
+     */
+    public static List<Map<String, String>> read(String filePath, String sheetName) {
+        List<Map<String, String>> rows = new ArrayList<>();
+        forEachRow(filePath, sheetName, rows::add);
+        return rows;
+    }
+
+    /**
+     * SAX 行处理器：把单元格事件组装成与 ExcelReader 相同结构的行 Map
+     */
+    private static class RowHandler implements SheetContentsHandler {
+
+        private final Consumer<Map<String, String>> rowConsumer;
+
+        // 由第 1 行构建；未读到表头前为 null
+        private RowSchema schema;
+        private boolean headerMissing;
+
+        private int currentRow = -1;
+        private int nextColumn;
+        private String[] values = new String[16];
+        private int maxColumn = -1;
+
+        RowHandler(Consumer<Map<String, String>> rowConsumer) {
+            this.rowConsumer = rowConsumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            currentRow = rowNum;
+            nextColumn = 0;
+            maxColumn = -1;
+            Arrays.fill(values, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = col + 1;
+
+            if (col >= values.length) {
+                values = Arrays.copyOf(values, Math.max(col + 1, values.length * 2));
+            }
+            values[col] = formattedValue;
+            maxColumn = Math.max(maxColumn, col);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (schema == null) {
+                // 与 DOM 方式一致：第 0 行缺失时整个 Sheet 不产出数据
+                if (rowNum != 0 || headerMissing) {
+                    headerMissing = true;
+                    return;
+                }
+                String[] headers = new String[maxColumn + 1];
+                for (int j = 0; j <= maxColumn; j++) {
+                    headers[j] = values[j] == null ? "" : values[j].trim();
+                }
+                schema = RowSchema.of(headers);
+                return;
+            }
+
+            for (int j = 0; j <= maxColumn; j++) {
+                if (values[j] != null) values[j] = values[j].trim();
+            }
+
+            CompactRow row = schema.toRow(values, currentRow + 1);
+            if (row != null) {
+                rowConsumer.accept(row);
+            }
+        }
+
+        @Override
+        public void endSheet() {
+            if (schema != null) schema.releasePool();
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.autoapi.base;
+
+import com.example.autoapi.config.EnvConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * TestPlanSnapshot：把 Excel 用例预编译为二进制测试计划，重跑时跳过 POI 与 XLSX 解析
+ * <p>
+ * 文件结构（大端序）：
+ * <pre>
+ * header    : magic(int) version(int) sheetCount(int) stringCount(int)
+ *             stringIndexOffset(long) stringDataOffset(long) sheetDirOffset(long)
+ *             sourceSize(long) sourceModified(long) fingerprint(32 字节 SHA-256)
+ * strings   : stringCount × [offset(int) length(int)]，随后是 UTF-8 字节
+ * sheetDir  : sheetCount × [nameId(int) keyCount(int) rowCount(int) keysOffset(long) rowsOffset(long)]
+ * keys      : keyCount × stringId(int)
+ * rows      : rowCount × keyCount × stringId(int)，定长行，第 r 行位于 rowsOffset + r × keyCount × 4
+ * </pre>
+ * 读取时通过 FileChannel 内存映射，只解码目标 Sheet 用到的字符串。
+ * 快照默认写在 target/testplan 下（excel.plan.dir）。
+ * <p>
+ * 新鲜度按用例内容判断而不是文件时间：fingerprint 只覆盖 Sheet 名、表头与数据列，
+ * 不含 ExcelWriter 回写的结果列（response / status / durationMs）。
+ * 源文件大小与修改时间和快照记录一致时直接使用；不一致时重新计算指纹，相同则更新记录后继续使用。
+ * ExcelWriter 回写结果后会同步更新记录，因此默认的逐条回写模式下快照也不会失效。
+ */
+public class TestPlanSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestPlanSnapshot.class);
+
+    private static final int MAGIC = 0x58545031; // "XTP1"
+    private static final int VERSION = 2;
+    private static final int STAMP_OFFSET = 4 * 4 + 8 * 3;
+    private static final int FINGERPRINT_OFFSET = STAMP_OFFSET + 8 * 2;
+    private static final int FINGERPRINT_SIZE = 32;
+    private static final int HEADER_SIZE = FINGERPRINT_OFFSET + FINGERPRINT_SIZE;
+    private static final int SHEET_ENTRY_SIZE = 4 * 3 + 8 * 2;
+
+    // ExcelWriter 回写的结果列，不参与指纹计算
+    private static final Set<String> RESULT_COLUMNS = Set.of("response", "status", "durationms");
+
+    /**
+     * 命令行入口：编译一个或多个工作簿
+     * 例：java -cp ... com.example.autoapi.base.TestPlanSnapshot src/test/resources/testcases/api_tests.xlsx
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            logger.error("❌ 用法: TestPlanSnapshot <xlsx路径> [<xlsx路径> ...]");
+            return;
+        }
+        for (String xlsx : args) {
+            compile(xlsx);
+        }
+    }
+
+    /**
+     * 快照文件路径：excel.plan.dir 下，以 Excel 路径命名
+     */
+    public static Path planPath(String xlsxPath) {
+        String dir = EnvConfig.getOrDefault("excel.plan.dir", "target/testplan");
+        String name = Paths.get(xlsxPath).normalize().toString().replaceAll("[\\\\/:]+", "_");
+        return Paths.get(dir, name + ".plan");
+    }
+
+    /**
+     * 快照存在且与 Excel 中的用例内容一致（结果列的变化不影响）
+     */
+    public static boolean isFresh(String xlsxPath) {
+        Path plan = planPath(xlsxPath);
+        File xlsx = new File(xlsxPath);
+        if (!Files.isRegularFile(plan) || !xlsx.isFile()) return false;
+
+        ByteBuffer header = readHeader(plan);
+        if (header == null) return false;
+        if (header.getLong(STAMP_OFFSET) == xlsx.length() && header.getLong(STAMP_OFFSET + 8) == xlsx.lastModified()) {
+            return true;
+        }
+
+        // 文件被改动过：只有用例内容变化才算过期
+        byte[] recorded = new byte[FINGERPRINT_SIZE];
+        header.get(FINGERPRINT_OFFSET, recorded);
+        long size = xlsx.length();
+        long modified = xlsx.lastModified();
+        if (!Arrays.equals(recorded, fingerprint(xlsxPath))) return false;
+
+        writeStamp(plan, size, modified);
+        logger.debug("📦 Excel 仅结果列有变化，沿用测试计划快照: {}", xlsxPath);
+        return true;
+    }
+
+    /**
+     * 快照记录的源文件大小与修改时间是否与当前文件一致（只读快照头，不解析 Excel）
+     */
+    public static boolean isStampCurrent(String xlsxPath) {
+        if (!EnvConfig.getBoolean("excel.plan.enabled", false)) return false;
+        Path plan = planPath(xlsxPath);
+        File xlsx = new File(xlsxPath);
+        if (!Files.isRegularFile(plan) || !xlsx.isFile()) return false;
+
+        ByteBuffer header = readHeader(plan);
+        return header != null
+                && header.getLong(STAMP_OFFSET) == xlsx.length()
+                && header.getLong(STAMP_OFFSET + 8) == xlsx.lastModified();
+    }
+
+    /**
+     * ExcelWriter 只改写了结果列后调用：把快照记录更新为文件当前的大小与修改时间
+     */
+    public static void restamp(String xlsxPath) {
+        File xlsx = new File(xlsxPath);
+        writeStamp(planPath(xlsxPath), xlsx.length(), xlsx.lastModified());
+    }
+
+    /**
+     * 是否应从快照读取：需开启 excel.plan.enabled；
+     * 快照过期且开启 excel.plan.autoCompile 时先重新编译
+     */
+    public static boolean shouldUse(String xlsxPath) {
+        if (!EnvConfig.getBoolean("excel.plan.enabled", false)) return false;
+        if (isFresh(xlsxPath)) return true;
+        if (EnvConfig.getBoolean("excel.plan.autoCompile", false)) {
+            compile(xlsxPath);
+            return isFresh(xlsxPath);
+        }
+        return false;
+    }
+
+    /**
+     * 把工作簿的所有 Sheet 编译为二进制快照
+     *
+     * @param xlsxPath Excel 文件路径
+     * @return 快照文件路径
+     */
+    public static Path compile(String xlsxPath) {
+        long start = System.currentTimeMillis();
+        Path plan = planPath(xlsxPath);
+        File xlsx = new File(xlsxPath);
+        long sourceSize = xlsx.length();
+        long sourceModified = xlsx.lastModified();
+        MessageDigest digest = newDigest();
+
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        List<int[]> sheetKeys = new ArrayList<>();
+        List<int[]> sheetRows = new ArrayList<>();
+        List<Integer> sheetNames = new ArrayList<>();
+
+        for (String sheetName : StreamingExcelReader.sheetNames(xlsxPath)) {
+            List<Map<String, String>> rows = StreamingExcelReader.read(xlsxPath, sheetName);
+            List<String> keys = rows.isEmpty() ? List.of() : new ArrayList<>(rows.get(0).keySet());
+            update(digest, sheetName);
+            rows.forEach(row -> update(digest, row));
+
+            int[] keyIds = new int[keys.size()];
+            for (int k = 0; k < keyIds.length; k++) {
+                keyIds[k] = intern(keys.get(k), stringIds, strings);
+            }
+
+            int[] rowIds = new int[rows.size() * keyIds.length];
+            int p = 0;
+            for (Map<String, String> row : rows) {
+                for (String key : keys) {
+                    String value = row.get(key);
+                    rowIds[p++] = intern(value == null ? "" : value, stringIds, strings);
+                }
+            }
+
+            sheetNames.add(intern(sheetName, stringIds, strings));
+            sheetKeys.add(keyIds);
+            sheetRows.add(rowIds);
+        }
+
+        try {
+            Files.createDirectories(plan.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(plan.toAbsolutePath().getParent(), plan.getFileName().toString(), ".tmp");
+
+            byte[][] encoded = new byte[strings.size()][];
+            long dataLength = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                dataLength += encoded[i].length;
+            }
+
+            long stringIndexOffset = HEADER_SIZE;
+            long stringDataOffset = stringIndexOffset + 8L * encoded.length;
+            long sheetDirOffset = stringDataOffset + dataLength;
+            long cursor = sheetDirOffset + (long) SHEET_ENTRY_SIZE * sheetNames.size();
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(sheetNames.size());
+                out.writeInt(encoded.length);
+                out.writeLong(stringIndexOffset);
+                out.writeLong(stringDataOffset);
+                out.writeLong(sheetDirOffset);
+                out.writeLong(sourceSize);
+                out.writeLong(sourceModified);
+                out.write(digest.digest());
+
+                int offset = 0;
+                for (byte[] bytes : encoded) {
+                    out.writeInt(offset);
+                    out.writeInt(bytes.length);
+                    offset += bytes.length;
+                }
+                for (byte[] bytes : encoded) {
+                    out.write(bytes);
+                }
+
+                for (int s = 0; s < sheetNames.size(); s++) {
+                    int[] keyIds = sheetKeys.get(s);
+                    int rowCount = keyIds.length == 0 ? 0 : sheetRows.get(s).length / keyIds.length;
+                    long keysOffset = cursor;
+                    long rowsOffset = keysOffset + 4L * keyIds.length;
+                    cursor = rowsOffset + 4L * sheetRows.get(s).length;
+
+                    out.writeInt(sheetNames.get(s));
+                    out.writeInt(keyIds.length);
+                    out.writeInt(rowCount);
+                    out.writeLong(keysOffset);
+                    out.writeLong(rowsOffset);
+                }
+
+                for (int s = 0; s < sheetNames.size(); s++) {
+                    for (int id : sheetKeys.get(s)) out.writeInt(id);
+                    for (int id : sheetRows.get(s)) out.writeInt(id);
+                }
+            }
+
+            Files.move(tmp, plan, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("📦 测试计划快照已生成: {}（{} 个 Sheet，{} 个字符串，耗时 {} ms）",
+                    plan, sheetNames.size(), strings.size(), System.currentTimeMillis() - start);
+            return plan;
+
+        } catch (IOException e) {
+            throw new RuntimeException("❌ 测试计划快照生成失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从快照读取指定 Sheet
+     *
+     * @param xlsxPath  Excel 文件路径（用于定位快照）
+     * @param sheetName Sheet 名称
+     * @return 行数据，Sheet 不存在时为空列表
+     */
+    public static List<Map<String, String>> readSheet(String xlsxPath, String sheetName) {
+        Path plan = planPath(xlsxPath);
+
+        try (FileChannel channel = FileChannel.open(plan, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("快照大小异常（" + size + " 字节）: " + plan);
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                throw new IllegalStateException("快照格式不匹配: " + plan);
+            }
+            int sheetCount = count(buf.getInt(8), plan);
+            int stringCount = count(buf.getInt(12), plan);
+            int stringIndexOffset = offset(buf.getLong(16), 8L * stringCount, size, plan);
+            int stringDataOffset = offset(buf.getLong(24), 0, size, plan);
+            int sheetDirOffset = offset(buf.getLong(32), (long) SHEET_ENTRY_SIZE * sheetCount, size, plan);
+
+            StringTable strings = new StringTable(buf, stringCount, stringIndexOffset, stringDataOffset, plan);
+
+            for (int s = 0; s < sheetCount; s++) {
+                int entry = sheetDirOffset + SHEET_ENTRY_SIZE * s;
+                if (!sheetName.equals(strings.get(buf.getInt(entry)))) continue;
+
+                int keyCount = count(buf.getInt(entry + 4), plan);
+                int rowCount = count(buf.getInt(entry + 8), plan);
+                int keysOffset = offset(buf.getLong(entry + 12), 4L * keyCount, size, plan);
+                int rowsOffset = offset(buf.getLong(entry + 20), 4L * keyCount * rowCount, size, plan);
+
+                String[] keys = new String[keyCount];
+                for (int k = 0; k < keyCount; k++) {
+                    keys[k] = strings.get(buf.getInt(keysOffset + 4 * k));
+                }
+                RowSchema schema = RowSchema.of(keys);
+                schema.releasePool();
+
+                List<Map<String, String>> rows = new ArrayList<>(rowCount);
+                for (int r = 0; r < rowCount; r++) {
+                    int rowOffset = rowsOffset + 4 * keyCount * r;
+                    String[] values = new String[keyCount];
+                    for (int k = 0; k < keyCount; k++) {
+                        values[k] = strings.get(buf.getInt(rowOffset + 4 * k));
+                    }
+                    rows.add(schema.newRow(values));
+                }
+                return rows;
+            }
+            return new ArrayList<>();
+
+        } catch (Exception e) {
+            throw new RuntimeException("❌ 测试计划快照读取失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 校验快照中的计数非负
+     */
+    private static int count(int value, Path plan) {
+        if (value < 0) throw new IllegalStateException("快照已损坏（计数为负）: " + plan);
+        return value;
+    }
+
+    /**
+     * 校验从 offset 开始的 length 字节完整落在快照文件内，返回可用于内存映射的 int 偏移
+     */
+    private static int offset(long offset, long length, long size, Path plan) {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IllegalStateException("快照已损坏（偏移 " + offset + "，长度 " + length + " 超出文件大小 " + size + "）: " + plan);
+        }
+        return (int) offset;
+    }
+
+    /**
+     * 读取并校验快照头；格式或版本不匹配（如旧版本快照）时返回 null
+     */
+    private static ByteBuffer readHeader(Path plan) {
+        try (FileChannel channel = FileChannel.open(plan, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满快照头
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return null;
+            return header;
+        } catch (IOException e) {
+            logger.warn("⚠️ 测试计划快照读取失败: {}（{}）", plan, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeStamp(Path plan, long size, long modified) {
+        try (FileChannel channel = FileChannel.open(plan, StandardOpenOption.WRITE)) {
+            ByteBuffer stamp = ByteBuffer.allocate(16).putLong(size).putLong(modified).flip();
+            channel.write(stamp, STAMP_OFFSET);
+        } catch (IOException e) {
+            logger.warn("⚠️ 测试计划快照记录更新失败: {}（{}）", plan, e.getMessage());
+        }
+    }
+
+    /**
+     * 计算工作簿用例内容的指纹：Sheet 名、表头与数据列，跳过结果列
+     */
+    private static byte[] fingerprint(String xlsxPath) {
+        MessageDigest digest = newDigest();
+        for (String sheetName : StreamingExcelReader.sheetNames(xlsxPath)) {
+            update(digest, sheetName);
+            StreamingExcelReader.forEachRow(xlsxPath, sheetName, row -> update(digest, row));
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, Map<String, String> row) {
+        for (Map.Entry<String, String> cell : row.entrySet()) {
+            if (RESULT_COLUMNS.contains(cell.getKey().toLowerCase())) continue;
+            update(digest, cell.getKey());
+            update(digest, cell.getValue() == null ? "" : cell.getValue());
+        }
+        // 行分隔
+        digest.update((byte) 0xFF);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("❌ 不支持 SHA-256: " + e.getMessage(), e);
+        }
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<String> strings) {
+        return ids.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * 按需解码的字符串表：同一个 id 只解码一次，重复值天然共享同一个 String 实例
+     */
+    private static class StringTable {
+        private final MappedByteBuffer buf;
+        private final String[] decoded;
+        private final int indexOffset;
+        private final int dataOffset;
+        private final Path plan;
+
+        StringTable(MappedByteBuffer buf, int count, int indexOffset, int dataOffset, Path plan) {
+            this.buf = buf;
+            this.decoded = new String[count];
+            this.indexOffset = indexOffset;
+            this.dataOffset = dataOffset;
+            this.plan = plan;
+        }
+
+        String get(int id) {
+            if (id < 0 || id >= decoded.length) {
+                throw new IllegalStateException("快照已损坏（字符串 id " + id + " 越界）: " + plan);
+            }
+            String value = decoded[id];
+            if (value == null) {
+                int offset = buf.getInt(indexOffset + 8 * id);
+                int length = count(buf.getInt(indexOffset + 8 * id + 4), plan);
+                int start = offset(dataOffset + (long) offset, length, buf.capacity(), plan);
+                byte[] bytes = new byte[length];
+                buf.get(start, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+                decoded[id] = value;
+            }
+            return value;
+        }
+    }
+}
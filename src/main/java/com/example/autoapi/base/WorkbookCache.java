@@ -0,0 +1,126 @@
+package com.example.autoapi.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WorkbookCache：进程级 Excel 解析缓存
+ * <p>
+ * 以「文件路径 + 修改时间 + 文件大小」作为版本标识，同一个工作簿在 JVM 内只解析一次；
+ * Sheet 在第一次被请求时按 ExcelReader 配置的读取方式解析并缓存（dom 模式整本解析一次，所有 Sheet 一并缓存），
+ * 文件发生变化（如被 ExcelWriter 回写）后整本失效。
+ * <p>
+ * 缓存中的行只作为模板，每次返回的都是副本，调用方可以自由修改而不影响其他用例。
+ */
+public class WorkbookCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkbookCache.class);
+
+    // 规范化路径 -> 缓存条目
+    private static final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 获取指定 Sheet 的行数据，未命中或文件已变化时重新解析
+     *
+     * @param filePath  Excel 文件路径
+     * @param sheetName Sheet 名称
+     * @return 行数据副本，Sheet 不存在时为空列表
+     */
+    public static List<Map<String, String>> getSheet(String filePath, String sheetName) {
+        File file = new File(filePath);
+        if (!file.isFile()) {
+            throw new RuntimeException("❌ Excel读取失败: 文件不存在 " + filePath);
+        }
+
+        String key = canonicalPath(file);
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        Entry entry = cache.compute(key, (k, old) -> {
+            if (old != null && old.lastModified == lastModified && old.length == length) return old;
+            if (old != null) logger.info("♻️ Excel 文件已变化，缓存失效: {}", filePath);
+            return new Entry(lastModified, length);
+        });
+
+        List<Map<String, String>> rows = entry.sheets.get(sheetName);
+        if (rows == null) {
+            rows = load(entry, filePath, sheetName);
+        }
+        return copyOf(rows);
+    }
+
+    /**
+     * 解析并缓存 Sheet；dom 模式下一次解析整本，其余 Sheet 一并放入缓存
+     */
+    private static List<Map<String, String>> load(Entry entry, String filePath, String sheetName) {
+        synchronized (entry) {
+            List<Map<String, String>> rows = entry.sheets.get(sheetName);
+            if (rows != null) return rows;
+
+            long start = System.currentTimeMillis();
+            if (ExcelReader.isDomMode(filePath)) {
+                ExcelReader.readAllSheets(filePath).forEach((name, sheetRows) ->
+                        entry.sheets.putIfAbsent(name, Collections.unmodifiableList(sheetRows)));
+                rows = entry.sheets.computeIfAbsent(sheetName, name -> Collections.emptyList());
+            } else {
+                rows = Collections.unmodifiableList(ExcelReader.load(filePath, sheetName));
+                entry.sheets.put(sheetName, rows);
+            }
+            logger.debug("📖 解析 Sheet [{}] {} 行，耗时 {} ms", sheetName, rows.size(), System.currentTimeMillis() - start);
+            return rows;
+        }
+    }
+
+    private static List<Map<String, String>> copyOf(List<Map<String, String>> rows) {
+        List<Map<String, String>> copy = new ArrayList<>(rows.size());
+        for (Map<String, String> row : rows) {
+            copy.add(row instanceof CompactRow compact ? compact.copy() : new LinkedHashMap<>(row));
+        }
+        return copy;
+    }
+
+    /**
+     * 主动失效某个工作簿（写入 Excel 后调用）
+     */
+    public static void invalidate(String filePath) {
+        cache.remove(canonicalPath(new File(filePath)));
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * 缓存条目：记录文件版本与已解析的 Sheet
+     */
+    private static class Entry {
+        final long lastModified;
+        final long length;
+        final ConcurrentHashMap<String, List<Map<String, String>>> sheets = new ConcurrentHashMap<>();
+
+        Entry(long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -55,4 +55,12 @@ public class EnvConfig {
             return defaultValue;
         }
     }
+
+    /**
+     * 获取 boolean 类型配置（带默认值）
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        return value.isEmpty() ? defaultValue : Boolean.parseBoolean(value);
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.autoapi.load;
+
+import com.example.autoapi.config.EnvConfig;
+
+import java.util.List;
+
+/**
+ * 压测参数（默认值取自 load.*）
+ *
+ * @param filePath        Excel 文件路径
+ * @param sheets          依次执行的 Sheet，所有行按顺序组成一个场景
+ * @param model           open：按到达速率发起场景，不等待前一个完成；closed：固定数量的虚拟用户循环执行场景
+ * @param rate            open 模式每秒发起的场景数
+ * @param users           closed 模式的虚拟用户数
+ * @param durationSeconds 持续时间（秒）
+ * @param rampUpSeconds   closed 模式虚拟用户在此时间内均匀启动
+ * @param thinkTimeMs     closed 模式每轮场景之间的等待
+ * @param maxInFlight     open 模式同时进行中的场景上限，超出的到达记为丢弃
+ * @param baseUrl         相对路径的前缀，为空时使用 base.url（可指向本地桩服务）
+ */
+public record LoadProfile(String filePath, List<String> sheets, String model, int rate, int users, int durationSeconds,
+                          int rampUpSeconds, long thinkTimeMs, int maxInFlight, String baseUrl) {
+
+    public LoadProfile {
+        sheets = List.copyOf(sheets);
+        model = model.toLowerCase();
+        if (!model.equals("open") && !model.equals("closed")) {
+            throw new IllegalArgumentException("❌ 不支持的压测模型: " + model + "（可选 open / closed）");
+        }
+        if (model.equals("open") && rate <= 0) throw new IllegalArgumentException("❌ open 模式 rate 必须大于 0");
+        if (model.equals("closed") && users <= 0) throw new IllegalArgumentException("❌ closed 模式 users 必须大于 0");
+    }
+
+    /**
+     * 除文件和 Sheet 外全部取自配置
+     */
+    public static LoadProfile fromConfig(String filePath, List<String> sheets) {
+        String baseUrl = EnvConfig.get("load.baseUrl");
+        return new LoadProfile(filePath, sheets,
+                EnvConfig.getOrDefault("load.model", "open"),
+                EnvConfig.getInt("load.rate", 10),
+                EnvConfig.getInt("load.users", 10),
+                EnvConfig.getInt("load.durationSeconds", 60),
+                EnvConfig.getInt("load.rampUpSeconds", 0),
+                EnvConfig.getInt("load.thinkTimeMs", 0),
+                EnvConfig.getInt("load.maxInFlight", 1000),
+                baseUrl.isEmpty() ? EnvConfig.get("base.url") : baseUrl);
+    }
+
+    public LoadProfile withModel(String model, int rateOrUsers) {
+        boolean open = "open".equalsIgnoreCase(model);
+        return new LoadProfile(filePath, sheets, model, open ? rateOrUsers : rate, open ? users : rateOrUsers,
+                durationSeconds, rampUpSeconds, thinkTimeMs, maxInFlight, baseUrl);
+    }
+
+    public LoadProfile withDuration(int durationSeconds) {
+        return new LoadProfile(filePath, sheets, model, rate, users, durationSeconds, rampUpSeconds, thinkTimeMs, maxInFlight, baseUrl);
+    }
+
+    @Override
+    public String toString() {
+        return ("open".equals(model) ? "open " + rate + "/s" : "closed " + users + " 用户")
+                + "，持续 " + durationSeconds + " s，场景 " + String.join(" → ", sheets);
+    }
+}
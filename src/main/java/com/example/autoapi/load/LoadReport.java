@@ -0,0 +1,146 @@
+package com.example.autoapi.load;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LoadReport：压测结果，按场景步骤分别统计请求数、失败数与耗时分布（微秒记录，毫秒输出）
+ * <p>
+ * 失败包含两类：收到了响应（或超时）但不符合预期，耗时计入分布；以及连接失败等请求异常，
+ * 单独计数，不计入耗时分布，避免瞬间失败的请求拉低分位数。
+ */
+public class LoadReport {
+
+    private final LoadProfile profile;
+    private final List<String> steps;
+    private final LatencyHistogram[] histograms;
+    private final LongAdder[] errors;
+    private final LongAdder[] requestErrors;
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long elapsedNanos;
+
+    LoadReport(LoadProfile profile, List<String> steps) {
+        this.profile = profile;
+        this.steps = List.copyOf(steps);
+        this.histograms = new LatencyHistogram[steps.size()];
+        this.errors = new LongAdder[steps.size()];
+        this.requestErrors = new LongAdder[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            histograms[i] = new LatencyHistogram();
+            errors[i] = new LongAdder();
+            requestErrors[i] = new LongAdder();
+        }
+    }
+
+    void record(int step, long micros, boolean ok) {
+        histograms[step].record(micros);
+        if (!ok) errors[step].increment();
+    }
+
+    /**
+     * 请求异常（未收到响应）：计入请求数与失败数，不计入耗时分布
+     */
+    void recordError(int step) {
+        requestErrors[step].increment();
+        errors[step].increment();
+    }
+
+    void recordIteration() {
+        iterations.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 所有步骤合并后的耗时分布
+     */
+    public LatencyHistogram getTotal() {
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram h : histograms) total.add(h);
+        return total;
+    }
+
+    public LatencyHistogram getStep(int step) {
+        return histograms[step];
+    }
+
+    public long getRequests() {
+        long n = 0;
+        for (int i = 0; i < histograms.length; i++) n += histograms[i].getCount() + requestErrors[i].sum();
+        return n;
+    }
+
+    public long getErrors() {
+        long n = 0;
+        for (LongAdder e : errors) n += e.sum();
+        return n;
+    }
+
+    /**
+     * 未收到响应的请求异常数（已包含在 getErrors() 中）
+     */
+    public long getRequestErrors() {
+        long n = 0;
+        for (LongAdder e : requestErrors) n += e.sum();
+        return n;
+    }
+
+    /**
+     * 完整执行（含中途失败）的场景数
+     */
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    /**
+     * open 模式下因进行中的场景达到 load.maxInFlight 而丢弃的到达数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    /**
+     * 每秒完成的请求数
+     */
+    public double getThroughput() {
+        double seconds = getElapsedSeconds();
+        return seconds <= 0 ? 0 : getRequests() / seconds;
+    }
+
+    /**
+     * 文本报表：每个步骤一行，最后一行为合计
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("📊 压测报告：").append(profile).append('\n');
+        sb.append(String.format("耗时 %.1f s，场景 %d 轮，请求 %d，失败 %d（其中请求异常 %d），丢弃 %d，吞吐 %.1f req/s%n",
+                getElapsedSeconds(), getIterations(), getRequests(), getErrors(), getRequestErrors(), getDropped(), getThroughput()));
+        sb.append(String.format("%-48s %8s %7s %7s %9s %9s %9s %9s %9s%n",
+                "步骤", "请求数", "失败", "异常", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+        for (int i = 0; i < steps.size(); i++) {
+            appendLine(sb, steps.get(i), histograms[i], errors[i].sum(), requestErrors[i].sum());
+        }
+        appendLine(sb, "合计", getTotal(), getErrors(), getRequestErrors());
+        return sb.toString();
+    }
+
+    private void appendLine(StringBuilder sb, String label, LatencyHistogram h, long errorCount, long requestErrorCount) {
+        double seconds = getElapsedSeconds();
+        long requests = h.getCount() + requestErrorCount;
+        sb.append(String.format("%-48s %8d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                label.length() > 48 ? label.substring(0, 45) + "..." : label,
+                requests, errorCount, requestErrorCount, seconds <= 0 ? 0 : requests / seconds,
+                h.percentile(50) / 1000.0, h.percentile(90) / 1000.0, h.percentile(99) / 1000.0, h.getMax() / 1000.0));
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.autoapi.load;
+
+import com.example.autoapi.auth.TokenManager;
+import com.example.autoapi.base.ApiClient;
+import com.example.autoapi.base.ApiResponse;
+import com.example.autoapi.base.ExcelReader;
+import com.example.autoapi.base.HttpClientFactory;
+import com.example.autoapi.config.EnvConfig;
+import com.example.autoapi.utils.ParamResolver;
+import com.example.autoapi.utils.ResponseDataStore;
+import com.example.autoapi.validator.ResponseValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadRunner：把 @ExcelSource 用例 Sheet 当作压测场景回放
+ * <p>
+ * 指定的 Sheet 中未标记 skip 的行按顺序组成一个场景，每个虚拟用户持有自己的变量表：
+ * extractField / storeAs 提取的值只写入该用户的变量表，占位符优先从中取值，用户之间互不干扰。
+ * 某一步请求失败（异常、状态码与 expectedStatus 不符（未填写时为 &gt;= 400）或响应体为 token 失效提示）后，
+ * 本轮场景的后续步骤不再执行。
+ * <ul>
+ *     <li>open：每秒发起 rate 个场景，不等待前一个完成（开放模型，响应变慢不会压低发压速率）</li>
+ *     <li>closed：users 个虚拟用户各自循环执行场景（封闭模型）</li>
+ * </ul>
+ * 请求经 {@link ApiClient#sendRaw} 发出：不经过响应缓存、重试与熔断，每个样本恰好是一次真实的 HTTP 请求，
+ * 分位数与吞吐描述的是被测服务本身。开启 load.autoLogin（默认）且尚无 token 时，开始计时前先登录一次；
+ * token 在计时前按需刷新，遇到 token 失效的响应时在计时之外刷新。场景在 load.executor（默认虚拟线程）上执行。
+ * 收到响应（或超时）的请求按步骤记录耗时到 LatencyHistogram；连接失败等其他请求异常单独计数，不计入耗时分布。
+ * 结束后输出 p50 / p90 / p99 / max 与吞吐。
+ * <p>
+ * 离线验证压测脚本：配置 http.mode=replay 由本地回放服务应答，或用 load.baseUrl 指向任意本地桩服务。
+ * <pre>
+ * java ... com.example.autoapi.load.LoadRunner &lt;Excel 文件&gt; &lt;Sheet[,Sheet...]&gt; [open|closed] [rate|users] [持续秒数]
+ * </pre>
+ */
+public class LoadRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadRunner.class);
+
+    /**
+     * 场景中的一步（一行用例）
+     */
+    private record Step(String label, String method, String url, String body, String headers, int expectedStatus,
+                        String extractField, String storeAs) {
+    }
+
+    /**
+     * 按 profile 执行压测，阻塞到结束并返回报告
+     */
+    public static LoadReport run(LoadProfile profile) {
+        List<Step> steps = loadSteps(profile);
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("❌ 压测场景为空: " + profile.filePath() + " " + profile.sheets());
+        }
+
+        // 与 BaseTest 的自动登录一致：计时开始前拿到 token，避免需要鉴权的步骤全部以 token 失效返回
+        if (EnvConfig.getBoolean("load.autoLogin", true) && ResponseDataStore.get("login_token") == null) {
+            TokenManager.loginAndStoreToken();
+            logger.info("🔐 已自动登录并写入 token");
+        }
+
+        LoadReport report = new LoadReport(profile, steps.stream().map(Step::label).toList());
+        ExecutorService executor = HttpClientFactory.newExecutor(EnvConfig.getOrDefault("load.executor", "virtual"), "load-vu");
+        logger.info("🚀 开始压测：{}，共 {} 个步骤", profile, steps.size());
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(profile.durationSeconds());
+        try {
+            if ("open".equals(profile.model())) {
+                runOpen(profile, steps, report, executor, start, end);
+            } else {
+                runClosed(profile, steps, report, executor, start, end);
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(EnvConfig.getInt("load.drainSeconds", 30), TimeUnit.SECONDS)) {
+                    logger.warn("⚠️ 压测结束后仍有请求未完成，已强制中断");
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            report.finish(System.nanoTime() - start);
+        }
+
+        logger.info("\n{}", report.format());
+        return report;
+    }
+
+    /**
+     * 开放模型：按固定间隔发起新场景；进行中的场景达到 maxInFlight 时丢弃本次到达而不是排队等待，
+     * 避免发压端被慢响应拖慢而低估延迟（coordinated omission）
+     */
+    private static void runOpen(LoadProfile profile, List<Step> steps, LoadReport report, ExecutorService executor,
+                                long start, long end) {
+        Semaphore inFlight = new Semaphore(Math.max(1, profile.maxInFlight()));
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.rate();
+
+        for (long i = 0; ; i++) {
+            long at = start + i * intervalNanos;
+            if (at >= end || Thread.currentThread().isInterrupted()) break;
+
+            long wait = at - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            if (!inFlight.tryAcquire()) {
+                report.recordDropped();
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    runIteration(steps, profile.baseUrl(), new HashMap<>(), report);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * 封闭模型：虚拟用户在 rampUpSeconds 内均匀启动，各自循环执行场景直到结束时间
+     */
+    private static void runClosed(LoadProfile profile, List<Step> steps, LoadReport report, ExecutorService executor,
+                                  long start, long end) {
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(profile.rampUpSeconds());
+        for (int u = 0; u < profile.users(); u++) {
+            long startAt = start + rampUpNanos * u / profile.users();
+            executor.execute(() -> {
+                long wait = startAt - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                Map<String, String> variables = new HashMap<>();
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    runIteration(steps, profile.baseUrl(), variables, report);
+                    if (profile.thinkTimeMs() > 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(profile.thinkTimeMs()));
+                }
+            });
+        }
+    }
+
+    /**
+     * 执行一轮场景
+     */
+    private static void runIteration(List<Step> steps, String baseUrl, Map<String, String> variables, LoadReport report) {
+        try {
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                TokenManager.ensureFresh();
+                long tokenGeneration = TokenManager.generation();
+
+                // 只解析一次：虚拟用户变量优先，其次缓存池与配置；sendRaw 不再解析
+                String url = ParamResolver.resolveWithVariables(step.url(), variables);
+                if (!url.startsWith("http")) url = baseUrl + url;
+                String body = ParamResolver.resolveWithVariables(step.body(), variables);
+                String headers = ParamResolver.resolveWithVariables(step.headers(), variables);
+
+                long begin = System.nanoTime();
+                ApiResponse response;
+                try {
+                    response = ApiClient.sendRaw(step.method(), url, body, headers);
+                } catch (RuntimeException e) {
+                    // 超时说明服务确实慢，按实际等待时间计入分布；其他异常（连接失败等）没有可比的耗时，单独计数
+                    if (isTimeout(e)) report.record(i, (System.nanoTime() - begin) / 1000, false);
+                    else report.recordError(i);
+                    return;
+                }
+
+                long micros = (System.nanoTime() - begin) / 1000;
+
+                int status = response.getStatusCode();
+                boolean ok = step.expectedStatus() > 0 ? status == step.expectedStatus() : status < 400;
+                boolean tokenInvalid = false;
+                try (response) {
+                    // 服务端以 200 + "code":401 表示 token 失效，按失败计入
+                    tokenInvalid = ApiClient.isTokenInvalid(response);
+                    if (tokenInvalid) ok = false;
+                    if (ok && step.storeAs() != null) {
+                        variables.put(step.storeAs(), ResponseValidator.readJsonField(response, step.extractField()));
+                    }
+                } catch (AssertionError e) {
+                    // 提取失败说明响应内容不对，按失败计入该步骤
+                    ok = false;
+                }
+                report.record(i, micros, ok);
+                if (tokenInvalid) refreshToken(tokenGeneration);
+                if (!ok) return;
+            }
+        } finally {
+            report.recordIteration();
+        }
+    }
+
+    /**
+     * 在计时之外刷新被拒绝的 token；同时失效的请求只触发一次登录，刷新失败只记录告警
+     */
+    private static void refreshToken(long seenGeneration) {
+        try {
+            TokenManager.refreshToken(seenGeneration);
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ 压测中 token 刷新失败: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpTimeoutException) return true;
+        }
+        return false;
+    }
+
+    private static List<Step> loadSteps(LoadProfile profile) {
+        List<Step> steps = new ArrayList<>();
+        for (String sheet : profile.sheets()) {
+            for (Map<String, String> row : ExcelReader.read(profile.filePath(), sheet)) {
+                if ("true".equalsIgnoreCase(row.getOrDefault("skip", "false"))) continue;
+
+                String method = row.getOrDefault("method", "POST").toUpperCase();
+                String rawUrl = row.getOrDefault("url", "");
+
+                String expected = row.getOrDefault("expectedStatus", "").trim();
+                String extractField = row.getOrDefault("extractField", "").trim();
+                String storeAs = row.getOrDefault("storeAs", "").trim();
+                boolean extract = !extractField.isEmpty() && !storeAs.isEmpty();
+
+                steps.add(new Step(sheet + "#" + row.getOrDefault("rowIndex", "?") + " " + method + " " + rawUrl,
+                        method, rawUrl, row.getOrDefault("body", ""), row.getOrDefault("headers", ""),
+                        expected.isEmpty() ? -1 : Integer.parseInt(expected),
+                        extract ? extractField : null, extract ? storeAs : null));
+            }
+        }
+        return steps;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            logger.error("❌ 用法: LoadRunner <Excel 文件> <Sheet[,Sheet...]> [open|closed] [rate|users] [持续秒数]");
+            return;
+        }
+
+        LoadProfile profile = LoadProfile.fromConfig(args[0], Arrays.asList(args[1].split("\\s*,\\s*")));
+        if (args.length > 3) profile = profile.withModel(args[2], Integer.parseInt(args[3]));
+        else if (args.length > 2) profile = profile.withModel(args[2], "open".equalsIgnoreCase(args[2]) ? profile.rate() : profile.users());
+        if (args.length > 4) profile = profile.withDuration(Integer.parseInt(args[4]));
+
+        LoadReport report = run(profile);
+        if (report.getErrors() > 0) {
+            logger.warn("⚠️ 压测存在失败请求: {} 个（其中请求异常 {} 个）", report.getErrors(), report.getRequestErrors());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.autoapi.replay;
+
+import com.example.autoapi.base.ApiResponse;
+import com.example.autoapi.config.EnvConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * RecordStore：录制 / 回放的本地存储（http.mode=record|replay|live）
+ * <p>
+ * 目录结构（replay.dir，默认 recordings）：
+ * <pre>
+ * recordings/index.jsonl            每行一条 {@link Recording}，后写入的覆盖先写入的
+ * recordings/bodies/&lt;key&gt;.body    响应体原文
+ * </pre>
+ * key = sha256(METHOD \n url \n sha256(请求体))。请求体中含时间戳、UUID 等每次都会变化的值时，
+ * 回放会退化为只按 METHOD + url 匹配最近一次录制。
+ */
+public class RecordStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordStore.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * 当前运行模式：live / record / replay
+     */
+    public static String mode() {
+        return EnvConfig.getOrDefault("http.mode", "live").toLowerCase();
+    }
+
+    public static boolean isRecording() {
+        return "record".equals(mode());
+    }
+
+    public static boolean isReplaying() {
+        return "replay".equals(mode());
+    }
+
+    public static Path dir() {
+        return Paths.get(EnvConfig.getOrDefault("replay.dir", "recordings"));
+    }
+
+    public static String keyOf(String method, String url, String body) {
+        return sha256(method.toUpperCase() + "\n" + normalize(url) + "\n" + sha256(body == null ? "" : body));
+    }
+
+    /**
+     * 统一 URL 写法（空路径补 /），保证录制与回放时的 key 一致
+     */
+    public static String normalize(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) return url;
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            return uri.getScheme().toLowerCase() + "://" + uri.getRawAuthority() + path
+                    + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * 保存一次请求 / 响应；304 等没有响应体的条件请求结果不录制
+     */
+    public static void record(String method, String url, String body, ApiResponse response) {
+        if (response.getStatusCode() == 304) return;
+
+        String bodyHash = sha256(body == null ? "" : body);
+        String key = keyOf(method, url, body);
+        String bodyFile = "bodies/" + key + ".body";
+        Path dir = dir();
+
+        try {
+            Path target = dir.resolve(bodyFile);
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), key, ".tmp");
+            try (InputStream in = response.openBody()) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Recording recording = new Recording(key, method.toUpperCase(), normalize(url), bodyHash, response.getStatusCode(),
+                    response.getHeaders() == null ? Map.of() : response.getHeaders(), bodyFile,
+                    response.getDurationMs(), System.currentTimeMillis());
+            appendIndex(dir, mapper.writeValueAsString(recording));
+            logger.debug("📼 已录制: [{} {}] -> {}", method, url, response.getStatusCode());
+        } catch (IOException e) {
+            // 录制失败不影响本次测试
+            logger.warn("⚠️ 录制失败 [{} {}]: {}", method, url, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取录制索引
+     *
+     * @return key -> 录制；另以 "METHOD url" 为 key 保存每个地址最近一次录制，供请求体不匹配时兜底
+     */
+    public static Map<String, Recording> loadIndex(Path dir) {
+        Map<String, Recording> index = new HashMap<>();
+        Path file = dir.resolve("index.jsonl");
+        if (!Files.exists(file)) {
+            logger.warn("⚠️ 录制索引不存在: {}", file.toAbsolutePath());
+            return index;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                Recording recording = mapper.readValue(line, Recording.class);
+                index.put(recording.key(), recording);
+                index.put(recording.method() + " " + recording.url(), recording);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("❌ 读取录制索引失败: " + file, e);
+        }
+        return index;
+    }
+
+    private static synchronized void appendIndex(Path dir, String line) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(dir.resolve("index.jsonl"), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(line);
+            writer.write('\n');
+        }
+    }
+
+    static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new RuntimeException("❌ 计算哈希失败", e);
+        }
+    }
+}
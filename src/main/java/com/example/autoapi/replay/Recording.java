@@ -0,0 +1,20 @@
+package com.example.autoapi.replay;
+
+import java.util.Map;
+
+/**
+ * 一条录制记录，对应 index.jsonl 中的一行
+ *
+ * @param key        sha256(method + url + bodyHash)
+ * @param method     请求方法（大写）
+ * @param url        解析后的完整请求地址
+ * @param bodyHash   请求体 sha256
+ * @param status     响应状态码
+ * @param headers    响应头
+ * @param bodyFile   响应体文件（相对录制目录）
+ * @param durationMs 录制时的实际耗时
+ * @param recordedAt 录制时间戳
+ */
+public record Recording(String key, String method, String url, String bodyHash, int status,
+                        Map<String, String> headers, String bodyFile, long durationMs, long recordedAt) {
+}
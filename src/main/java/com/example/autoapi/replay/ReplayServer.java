@@ -0,0 +1,151 @@
+package com.example.autoapi.replay;
+
+import com.example.autoapi.base.HttpClientFactory;
+import com.example.autoapi.config.EnvConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * ReplayServer：基于 JDK HttpServer 的本地回放桩
+ * <p>
+ * http.mode=replay 时 ApiClient 把请求改发到本服务，原始地址的 scheme://host:port 放在
+ * {@value #TARGET_HEADER} 请求头中，本服务按「方法 + 原始 URL + 请求体哈希」查找录制并返回，
+ * 每个响应前等待 replay.latencyMs 毫秒以模拟网络延迟。找不到录制时返回 501。
+ * <p>
+ * 也可单独启动作为压测 / 基准测试的确定性目标：
+ * <pre>
+ * java ... com.example.autoapi.replay.ReplayServer [录制目录] [端口] [延迟毫秒]
+ * </pre>
+ */
+public class ReplayServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayServer.class);
+
+    public static final String TARGET_HEADER = "X-Replay-Target";
+
+    // 由 HttpServer 根据实际响应体重新计算的头，不能原样回放
+    private static final Set<String> SKIPPED_HEADERS = Set.of("content-length", "transfer-encoding", "connection", "date", ":status");
+
+    private static ReplayServer shared;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Recording> index;
+    private final Path dir;
+    private final long latencyMs;
+
+    private ReplayServer(Path dir, int port, long latencyMs) throws IOException {
+        this.dir = dir;
+        this.latencyMs = latencyMs;
+        this.index = RecordStore.loadIndex(dir);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = HttpClientFactory.newExecutor(EnvConfig.getOrDefault("replay.executor", "cached"), "replay-server");
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * 启动回放服务
+     *
+     * @param port      端口，0 表示随机
+     * @param latencyMs 每个响应注入的延迟
+     */
+    public static ReplayServer start(Path dir, int port, long latencyMs) {
+        try {
+            ReplayServer replayServer = new ReplayServer(dir, port, latencyMs);
+            logger.info("📼 回放服务已启动: {}（录制目录 {}，{} 条记录，注入延迟 {} ms）",
+                    replayServer.baseUrl(), dir.toAbsolutePath(), replayServer.index.values().stream().distinct().count(), latencyMs);
+            return replayServer;
+        } catch (IOException e) {
+            throw new RuntimeException("❌ 回放服务启动失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按配置启动（或复用）进程内共享的回放服务
+     */
+    public static synchronized ReplayServer shared() {
+        if (shared == null) {
+            shared = start(RecordStore.dir(), EnvConfig.getInt("replay.port", 0), EnvConfig.getInt("replay.latencyMs", 0));
+            Runtime.getRuntime().addShutdownHook(new Thread(shared::stop, "replay-server-shutdown"));
+        }
+        return shared;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod().toUpperCase();
+            String target = exchange.getRequestHeaders().getFirst(TARGET_HEADER);
+            if (target == null) target = EnvConfig.get("base.url");
+
+            String query = exchange.getRequestURI().getRawQuery();
+            String url = target + exchange.getRequestURI().getRawPath() + (query != null ? "?" + query : "");
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+            Recording recording = index.get(RecordStore.keyOf(method, url, body));
+            if (recording == null) recording = index.get(method + " " + RecordStore.normalize(url));
+
+            if (latencyMs > 0) Thread.sleep(latencyMs);
+
+            if (recording == null) {
+                logger.warn("📼 没有找到录制: [{} {}]", method, url);
+                byte[] miss = ("{\"code\":501,\"msg\":\"no recording for " + method + " " + url.replace("\"", "\\\"") + "\"}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(501, miss.length);
+                exchange.getResponseBody().write(miss);
+                return;
+            }
+
+            recording.headers().forEach((name, value) -> {
+                if (!SKIPPED_HEADERS.contains(name.toLowerCase())) exchange.getResponseHeaders().add(name, value);
+            });
+
+            Path bodyFile = dir.resolve(recording.bodyFile());
+            long length = Files.exists(bodyFile) ? Files.size(bodyFile) : 0;
+            boolean noBody = length == 0 || "HEAD".equals(method) || recording.status() == 204 || recording.status() == 304;
+            exchange.sendResponseHeaders(recording.status(), noBody ? -1 : length);
+            if (!noBody) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    Files.copy(bodyFile, out);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("❌ 回放请求处理失败: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = args.length > 0 ? Paths.get(args[0]) : RecordStore.dir();
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : EnvConfig.getInt("replay.port", 18080);
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : EnvConfig.getInt("replay.latencyMs", 0);
+        start(dir, port, latency);
+        Thread.currentThread().join();
+    }
+}
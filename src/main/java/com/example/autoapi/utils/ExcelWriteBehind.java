@@ -0,0 +1,194 @@
+package com.example.autoapi.utils;
+
+import com.example.autoapi.config.EnvConfig;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ExcelWriteBehind：测试结果的写后缓冲（excel.write.mode=batch）
+ * <p>
+ * 结果先进入无锁队列，攒够 excel.write.batchSize 条或每隔 excel.write.flushIntervalMs 毫秒落盘一次。
+ * 每个文件只在第一次落盘时打开，之后工作簿常驻内存，结果按入队顺序直接应用到内存中的工作簿，
+ * 每次落盘只做一次整本序列化，最终内容与逐条写入相同。
+ * <p>
+ * 打开或写回失败时结果不会丢弃：未应用的结果与未写回的工作簿都会保留，在下一次落盘时重试。
+ * 套件结束时由 BaseTest 经 {@link ExcelWriter#flush()} 调用 {@link #close()}，JVM 退出前还会兜底再执行一次。
+ */
+public class ExcelWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelWriteBehind.class);
+
+    private static final ConcurrentLinkedQueue<ExcelWriter.Result> queue = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pending = new AtomicInteger();
+
+    // 文件路径 -> 常驻内存的工作簿，只在持有 flushLock 时访问
+    private static final Map<String, Target> targets = new LinkedHashMap<>();
+
+    // 保证同一时刻只有一个线程在落盘，且落盘顺序与入队顺序一致
+    private static final ReentrantLock flushLock = new ReentrantLock();
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    /**
+     * 单个结果文件的写入状态
+     */
+    private static class Target {
+        final String filePath;
+        Workbook workbook;
+        // 上次写回后文件的修改时间，用于发现文件在外部被改动
+        long savedModified;
+        // 工作簿中有尚未写回文件的结果
+        boolean dirty;
+        // 工作簿打开失败时暂存的结果，按入队顺序
+        final List<ExcelWriter.Result> unapplied = new ArrayList<>();
+
+        Target(String filePath) {
+            this.filePath = filePath;
+        }
+    }
+
+    /**
+     * 结果入队，达到批量阈值时由当前线程触发落盘
+     */
+    public static void submit(ExcelWriter.Result result) {
+        startSchedulerIfNeeded();
+        queue.add(result);
+        if (pending.incrementAndGet() >= EnvConfig.getInt("excel.write.batchSize", 50)) {
+            flush();
+        }
+    }
+
+    /**
+     * 立即把队列中所有结果落盘
+     */
+    public static void flush() {
+        flushLock.lock();
+        try {
+            ExcelWriter.Result result;
+            int polled = 0;
+            while ((result = queue.poll()) != null) {
+                targets.computeIfAbsent(result.filePath(), Target::new).unapplied.add(result);
+                polled++;
+            }
+            pending.addAndGet(-polled);
+
+            for (Target target : targets.values()) {
+                if (!target.unapplied.isEmpty() || target.dirty) {
+                    flush(target);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 落盘并释放所有常驻内存的工作簿（套件结束时调用）；仍未能写回的结果记录错误日志后丢弃
+     */
+    public static void close() {
+        flushLock.lock();
+        try {
+            flush();
+            for (Target target : targets.values()) {
+                int lost = target.unapplied.size();
+                if (target.dirty || lost > 0) {
+                    logger.error("❌ Excel 结果最终未能写回: {}（未写回的工作簿: {}，未应用的结果: {} 条）",
+                            target.filePath, target.dirty ? "是" : "否", lost);
+                }
+                closeQuietly(target);
+            }
+            targets.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private static void flush(Target target) {
+        long start = System.currentTimeMillis();
+        try {
+            if (target.workbook != null && !target.dirty && modifiedOutside(target)) {
+                // 文件在两次落盘之间被外部修改过，丢弃内存副本重新打开
+                closeQuietly(target);
+            }
+            if (target.workbook == null) {
+                target.workbook = ExcelWriter.open(target.filePath);
+                target.savedModified = new File(target.filePath).lastModified();
+            }
+        } catch (Exception e) {
+            logger.error("❌ 批量写入 Excel 失败: {}，保留 {} 条结果待下次重试", e.getMessage(), target.unapplied.size(), e);
+            return;
+        }
+
+        int applied = 0;
+        for (Iterator<ExcelWriter.Result> it = target.unapplied.iterator(); it.hasNext(); ) {
+            ExcelWriter.Result result = it.next();
+            it.remove();
+            try {
+                ExcelWriter.applyResult(target.workbook, result);
+                applied++;
+                target.dirty = true;
+            } catch (Exception e) {
+                // 单条结果本身有误（如 Sheet 不存在），重试也不会成功
+                logger.error("❌ 写入 Excel 失败 [{} 第 {} 行]: {}", result.sheetName(), result.rowIndex(), e.getMessage());
+            }
+        }
+        if (!target.dirty) return;
+
+        try {
+            ExcelWriter.writeBack(target.workbook, target.filePath);
+            target.dirty = false;
+            target.savedModified = new File(target.filePath).lastModified();
+            logger.info("💾 批量写入 Excel {} 条结果: {}（耗时 {} ms）",
+                    applied, target.filePath, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("❌ 批量写回 Excel 失败: {}，结果保留在内存中，下次落盘时重试", e.getMessage(), e);
+        }
+    }
+
+    private static boolean modifiedOutside(Target target) {
+        return new File(target.filePath).lastModified() != target.savedModified;
+    }
+
+    private static void closeQuietly(Target target) {
+        if (target.workbook == null) return;
+        try {
+            target.workbook.close();
+        } catch (Exception ignored) {
+            // 只读关闭，忽略
+        }
+        target.workbook = null;
+    }
+
+    private static void startSchedulerIfNeeded() {
+        if (scheduler != null) return;
+        synchronized (ExcelWriteBehind.class) {
+            if (scheduler != null) return;
+
+            long interval = EnvConfig.getInt("excel.write.flushIntervalMs", 5000);
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "excel-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+            if (interval > 0) {
+                executor.scheduleWithFixedDelay(ExcelWriteBehind::flush, interval, interval, TimeUnit.MILLISECONDS);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(ExcelWriteBehind::close, "excel-write-behind-shutdown"));
+            scheduler = executor;
+        }
+    }
+}
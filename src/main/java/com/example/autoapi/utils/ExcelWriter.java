@@ -1,7 +1,13 @@
 package com.example.autoapi.utils;
 
+import com.example.autoapi.base.ApiResponse;
+import com.example.autoapi.base.TestPlanSnapshot;
+import com.example.autoapi.base.WorkbookCache;
+import com.example.autoapi.config.EnvConfig;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.concurrent.locks.ReentrantLock;
@@ -11,9 +17,18 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class ExcelWriter {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExcelWriter.class);
+
     // 确保并发写入线程安全
     private static final ReentrantLock lock = new ReentrantLock();
 
+    /**
+     * 一条待写入的测试结果
+     */
+    public record Result(String filePath, String sheetName, int rowIndex, String response, String status,
+                         long durationMs, String error) {
+    }
+
     /**
      * 写入测试结果到 Excel 文件的指定 Sheet 和行
      *
@@ -21,44 +36,137 @@ public class ExcelWriter {
      * @param sheetName Sheet 名称
      * @param rowIndex  Excel 行号（注意：从 1 开始，自动转换为 POI 的 0-based）
      * @param response  接口响应数据
-     * @param status    测试状态（PASS / FAIL）
+     * @param status    测试状态（PASS / FAIL / FAIL-SLA ...）
      */
     public static void writeResult(String filePath, String sheetName, int rowIndex, String response, String status) {
+        writeResult(filePath, sheetName, rowIndex, response, status, -1, null);
+    }
+
+    /**
+     * 写入测试结果（带耗时与错误信息），按 excel.write.mode 分发：
+     * direct（默认）立即回写源文件；batch 只入队，由 ExcelWriteBehind 批量落盘；
+     * separate 不修改源文件，追加到独立的流式结果工作簿（ResultWorkbookWriter）
+     * 开启 response.archive.enabled 时，响应体先归档，单元格只写引用与预览
+     *
+     * @param durationMs 请求耗时（毫秒），未知时传 -1
+     * @param error      失败原因，通过时为 null
+     */
+    public static void writeResult(String filePath, String sheetName, int rowIndex, String response, String status,
+                                   long durationMs, String error) {
+        write(new Result(filePath, sheetName, rowIndex, ResponseArchive.toCellValue(response), status, durationMs, error));
+    }
+
+    /**
+     * 同上，直接传入完整响应：落盘的大响应体按流归档，不会只归档截断后的预览；
+     * 未开启归档时大响应体只写预览（log.body.maxChars）
+     */
+    public static void writeResult(String filePath, String sheetName, int rowIndex, ApiResponse response, String status,
+                                   long durationMs, String error) {
+        write(new Result(filePath, sheetName, rowIndex, ResponseArchive.toCellValue(response), status, durationMs, error));
+    }
+
+    private static void write(Result result) {
+        String filePath = result.filePath();
+        String mode = EnvConfig.get("excel.write.mode");
+        if ("separate".equalsIgnoreCase(mode)) {
+            ResultWorkbookWriter.append(result);
+            return;
+        }
+        if ("batch".equalsIgnoreCase(mode)) {
+            ExcelWriteBehind.submit(result);
+            return;
+        }
+
         lock.lock(); // 确保线程安全
         Workbook workbook = null;
 
         try (FileInputStream fis = new FileInputStream(filePath)) {
             workbook = new XSSFWorkbook(fis);
-            Sheet sheet = workbook.getSheet(sheetName);
-            if (sheet == null) throw new RuntimeException("❌ Sheet 不存在: " + sheetName);
-
-            Row row = sheet.getRow(rowIndex - 1); // Excel 从 1 开始，POI 从 0 开始
-            if (row == null) row = sheet.createRow(rowIndex - 1);
-
-            // 获取“response”和“status”列索引
-            int responseCol = findOrCreateColumnIndex(sheet, "response");
-            int statusCol = findOrCreateColumnIndex(sheet, "status");
-
-            // 写入响应内容
-            writeCell(row, responseCol, response);
-            writeCell(row, statusCol, status);
+            applyResult(workbook, result);
 
         } catch (Exception e) {
             throw new RuntimeException("❌ 写入 Excel 失败: " + e.getMessage(), e);
         } finally {
             // 始终尝试写入，前提是 workbook 不为 null（且不抛出写入异常就关闭文件）
-            if (workbook != null) {
-                try (FileOutputStream fos = new FileOutputStream(filePath)) {
-                    workbook.write(fos);
-                    fos.flush();
-                } catch (IOException ioException) {
-                    throw new RuntimeException("❌ Excel 写入时出错: " + ioException.getMessage(), ioException);
-                }
+            try {
+                if (workbook != null) save(workbook, filePath);
+            } finally {
+                lock.unlock(); // 释放锁
             }
-            lock.unlock(); // 释放锁
         }
     }
 
+    /**
+     * 套件结束时调用：batch 模式把队列中的结果落盘，separate 模式生成结果工作簿（其他模式为空操作）
+     */
+    public static void flush() {
+        ExcelWriteBehind.close();
+        ResultWorkbookWriter.close();
+    }
+
+    /**
+     * 打开工作簿（供 ExcelWriteBehind 常驻内存使用）
+     */
+    static Workbook open(String filePath) {
+        try (FileInputStream fis = new FileInputStream(filePath)) {
+            return new XSSFWorkbook(fis);
+        } catch (Exception e) {
+            throw new RuntimeException("❌ 打开 Excel 失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 把内存中的工作簿整本写回文件
+     */
+    static void writeBack(Workbook workbook, String filePath) {
+        lock.lock();
+        try {
+            save(workbook, filePath);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把一条结果写入 workbook 中对应的单元格（单条写入与批量写入共用，保证结果一致）
+     */
+    static void applyResult(Workbook workbook, Result result) {
+        Sheet sheet = workbook.getSheet(result.sheetName());
+        if (sheet == null) throw new RuntimeException("❌ Sheet 不存在: " + result.sheetName());
+
+        Row row = sheet.getRow(result.rowIndex() - 1); // Excel 从 1 开始，POI 从 0 开始
+        if (row == null) row = sheet.createRow(result.rowIndex() - 1);
+
+        // 获取“response”和“status”列索引
+        int responseCol = findOrCreateColumnIndex(sheet, "response");
+        int statusCol = findOrCreateColumnIndex(sheet, "status");
+
+        // 写入响应内容
+        writeCell(row, responseCol, result.response());
+        writeCell(row, statusCol, result.status());
+
+        // 耗时已知时写在 status 后的 durationMs 列
+        if (result.durationMs() >= 0) {
+            int durationCol = findOrCreateColumnIndex(sheet, "durationMs");
+            Cell cell = row.getCell(durationCol);
+            if (cell == null) cell = row.createCell(durationCol);
+            cell.setCellValue(result.durationMs());
+        }
+    }
+
+    private static void save(Workbook workbook, String filePath) {
+        // 只改写结果列，写入前与 Excel 一致的测试计划快照写入后依然有效
+        boolean planCurrent = TestPlanSnapshot.isStampCurrent(filePath);
+        try (FileOutputStream fos = new FileOutputStream(filePath)) {
+            workbook.write(fos);
+            fos.flush();
+        } catch (IOException ioException) {
+            throw new RuntimeException("❌ Excel 写入时出错: " + ioException.getMessage(), ioException);
+        }
+        WorkbookCache.invalidate(filePath);
+        if (planCurrent) TestPlanSnapshot.restamp(filePath);
+    }
+
     private static void writeCell(Row row, int colIndex, String value) {
         Cell cell = row.getCell(colIndex);
         if (cell == null) cell = row.createCell(colIndex);
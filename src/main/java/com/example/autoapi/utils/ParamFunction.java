@@ -0,0 +1,17 @@
+package com.example.autoapi.utils;
+
+/**
+ * ParamFunction：占位符函数，Excel 中写作 ${__name} 或 ${__name(参数)}
+ * <p>
+ * 通过 {@link ParamResolver#registerFunction(String, ParamFunction)} 注册。
+ * 每次解析都会重新调用，并发用例会同时调用，实现需保证线程安全。
+ */
+@FunctionalInterface
+public interface ParamFunction {
+
+    /**
+     * @param args 括号内的原始参数文本（未拆分、未去空格）；没有括号时为空串
+     * @return 替换占位符的值，null 视为空串
+     */
+    String apply(String args);
+}
@@ -0,0 +1,96 @@
+package com.example.autoapi.utils;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ParamFunctions：内置占位符函数
+ * <pre>
+ * ${__uuid}               随机 UUID
+ * ${__seq} / ${__seq(n)}  本次运行内自增序列（从 1 开始），n 为序列名，不同序列互不影响
+ * ${__now}                当前时间戳（毫秒）
+ * ${__now(yyyyMMddHHmmss)} 按格式输出当前时间
+ * ${__random(min,max)}    [min, max] 范围内的随机整数，省略参数时为非负 int
+ * ${__randomString(n)}    n 位随机字母数字，默认 8 位
+ * </pre>
+ * 全部基于 AtomicLong / ThreadLocalRandom / 缓存的 DateTimeFormatter，并发调用不会互相加锁。
+ */
+final class ParamFunctions {
+
+    private static final char[] ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private static final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+    private static final Map<String, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+
+    private ParamFunctions() {
+    }
+
+    static void registerAll(Map<String, ParamFunction> registry) {
+        registry.put("__uuid", args -> uuid());
+        registry.put("__seq", args -> String.valueOf(sequences.computeIfAbsent(args.trim(), k -> new AtomicLong()).incrementAndGet()));
+        registry.put("__now", ParamFunctions::now);
+        registry.put("__random", ParamFunctions::random);
+        registry.put("__randomString", ParamFunctions::randomString);
+    }
+
+    /**
+     * 基于 ThreadLocalRandom 生成 v4 UUID，避免 UUID.randomUUID() 共享 SecureRandom
+     * 仅用于构造测试数据，不具备密码学强度
+     */
+    private static String uuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static String now(String pattern) {
+        if (pattern.isBlank()) return String.valueOf(System.currentTimeMillis());
+        DateTimeFormatter formatter = formatters.computeIfAbsent(pattern, p -> {
+            try {
+                return DateTimeFormatter.ofPattern(p);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("❌ __now 时间格式错误: " + p, e);
+            }
+        });
+        return ZonedDateTime.now().format(formatter);
+    }
+
+    private static String random(String args) {
+        if (args.isBlank()) return String.valueOf(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+
+        String[] parts = args.split(",");
+        try {
+            if (parts.length != 2) throw new IllegalArgumentException();
+            long min = Long.parseLong(parts[0].trim());
+            long max = Long.parseLong(parts[1].trim());
+            if (min > max) throw new IllegalArgumentException();
+            return String.valueOf(max == Long.MAX_VALUE
+                    ? ThreadLocalRandom.current().nextLong(min, max)
+                    : ThreadLocalRandom.current().nextLong(min, max + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("❌ __random 参数应为 min,max 且 min <= max: " + args, e);
+        }
+    }
+
+    private static String randomString(String args) {
+        int length;
+        try {
+            length = args.isBlank() ? 8 : Integer.parseInt(args.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("❌ __randomString 参数应为长度: " + args, e);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHANUMERIC[random.nextInt(ALPHANUMERIC.length)];
+        }
+        return new String(chars);
+    }
+}
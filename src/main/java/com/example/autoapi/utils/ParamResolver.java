@@ -3,47 +3,101 @@ package com.example.autoapi.utils;
 import com.example.autoapi.config.EnvConfig;
 
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ParamResolver {
 
-    private static final Pattern pattern = Pattern.compile("\\$\\{(.*?)}");
+    // 原始字符串 -> 预编译模板；超过上限后不再缓存新模板，直接现场编译
+    private static final Map<String, ParamTemplate> templates = new ConcurrentHashMap<>();
+    private static final int MAX_TEMPLATES = EnvConfig.getInt("param.template.cacheSize", 10000);
+
+    // 占位符函数：${__name} / ${__name(参数)}
+    private static final Map<String, ParamFunction> functions = new ConcurrentHashMap<>();
+
+    static {
+        ParamFunctions.registerAll(functions);
+    }
+
+    /**
+     * 注册自定义占位符函数，同名时覆盖（包括内置函数）
+     *
+     * @param name 函数名，必须以 __ 开头，如 "__orderNo"
+     */
+    public static void registerFunction(String name, ParamFunction function) {
+        if (name == null || !name.startsWith("__")) {
+            throw new IllegalArgumentException("❌ 占位符函数名必须以 __ 开头: " + name);
+        }
+        functions.put(name, function);
+    }
 
     /**
      * 替换 ${key} 占位符，仅使用配置文件中的变量
      */
     public static String resolve(String input) {
-        return replaceParams(input, null);
+        return replaceParams(input, null, null);
     }
 
     /**
      * 替换 ${key} 占位符，优先从缓存池中取值（如 login_token 等）
      */
     public static String resolveWithStore(String input) {
-        return replaceParams(input, ResponseDataStore.getAll());
+        return replaceParams(input, null, ResponseDataStore.getAll());
+    }
+
+    /**
+     * 替换 ${key} 占位符，优先从调用方的私有变量中取值，其次缓存池，最后配置文件
+     * 压测时每个虚拟用户持有自己的变量表，互不覆盖
+     */
+    public static String resolveWithVariables(String input, Map<String, String> variables) {
+        return replaceParams(input, variables, ResponseDataStore.getAll());
     }
 
-    private static String replaceParams(String input, Map<String, String> store) {
+    private static String replaceParams(String input, Map<String, String> variables, Map<String, String> store) {
         if (input == null || input.isBlank()) return input;
 
-        Matcher matcher = pattern.matcher(input);
-        StringBuffer sb = new StringBuffer();
+        // 不含占位符（包括已解析过一遍的字符串）直接返回，不编译也不进缓存
+        if (!input.contains("${")) return input;
 
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            String value = null;
+        ParamTemplate template = templates.get(input);
+        if (template == null) {
+            template = ParamTemplate.compile(input);
+            if (templates.size() < MAX_TEMPLATES) {
+                templates.putIfAbsent(input, template);
+            }
+        }
+        if (!template.hasVariables()) return input;
 
+        return template.render(key -> {
+            if (key.startsWith("__")) {
+                String value = callFunction(key);
+                if (value != null) return value;
+            }
+            if (variables != null && variables.containsKey(key)) {
+                return variables.get(key);
+            }
             if (store != null && store.containsKey(key)) {
-                value = store.get(key);
-            } else {
-                value = EnvConfig.get(key); // fallback 到配置文件
+                return store.get(key);
             }
+            return EnvConfig.get(key); // fallback 到配置文件
+        });
+    }
 
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(value != null ? value : ""));
+    /**
+     * 调用占位符函数；未注册的名字返回 null，按普通变量处理
+     */
+    private static String callFunction(String key) {
+        String name = key;
+        String args = "";
+        int paren = key.indexOf('(');
+        if (paren > 0 && key.endsWith(")")) {
+            name = key.substring(0, paren);
+            args = key.substring(paren + 1, key.length() - 1);
         }
 
-        matcher.appendTail(sb);
-        return sb.toString();
+        ParamFunction function = functions.get(name);
+        if (function == null) return null;
+
+        String value = function.apply(args);
+        return value != null ? value : "";
     }
 }
@@ -0,0 +1,95 @@
+package com.example.autoapi.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * ParamTemplate：预编译的占位符模板
+ * <p>
+ * 把原始字符串一次性拆成「文本段 + 变量段」，之后每次渲染只需顺序拼接，不再跑正则。
+ * 解析规则与原先的正则 \$\{(.*?)} 完全一致：从 ${ 开始取到第一个 }，中间不能跨行；
+ * 找不到闭合 } 的 ${ 按普通文本处理。
+ */
+final class ParamTemplate {
+
+    // literals.length == keys.length + 1，渲染结果为 literals[0] + v(keys[0]) + literals[1] + ...
+    private final String[] literals;
+    private final String[] keys;
+    private final int literalLength;
+
+    private ParamTemplate(String[] literals, String[] keys) {
+        this.literals = literals;
+        this.keys = keys;
+        int len = 0;
+        for (String literal : literals) len += literal.length();
+        this.literalLength = len;
+    }
+
+    static ParamTemplate compile(String input) {
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+
+        int literalStart = 0;
+        int from = 0;
+        while (true) {
+            int open = input.indexOf("${", from);
+            if (open < 0) break;
+
+            int close = findClose(input, open + 2);
+            if (close < 0) {
+                // 这个 ${ 没有匹配成功，从下一个字符继续找
+                from = open + 1;
+                continue;
+            }
+
+            literals.add(input.substring(literalStart, open));
+            keys.add(input.substring(open + 2, close));
+            literalStart = close + 1;
+            from = close + 1;
+        }
+        literals.add(input.substring(literalStart));
+
+        return new ParamTemplate(literals.toArray(new String[0]), keys.toArray(new String[0]));
+    }
+
+    /**
+     * 是否包含占位符
+     */
+    boolean hasVariables() {
+        return keys.length > 0;
+    }
+
+    /**
+     * 依次用 lookup 取值拼接，取不到（null）时替换为空串
+     */
+    String render(Function<String, String> lookup) {
+        if (keys.length == 0) return literals[0];
+
+        String[] values = new String[keys.length];
+        int len = literalLength;
+        for (int i = 0; i < keys.length; i++) {
+            String value = lookup.apply(keys[i]);
+            values[i] = value != null ? value : "";
+            len += values[i].length();
+        }
+
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < keys.length; i++) {
+            sb.append(literals[i]).append(values[i]);
+        }
+        return sb.append(literals[keys.length]).toString();
+    }
+
+    /**
+     * 从 start 开始找第一个 }；遇到换行等行终止符（正则中 . 不匹配的字符）视为匹配失败
+     */
+    private static int findClose(String input, int start) {
+        for (int i = start; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '}') return i;
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return -1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.autoapi.utils;
+
+import com.example.autoapi.base.ApiResponse;
+import com.example.autoapi.config.EnvConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ResponseArchive：响应体归档（内容寻址 + gzip 压缩）
+ * <p>
+ * 开启 response.archive.enabled 后，写入 Excel 的响应体不再是原文，而是
+ * 「引用 + 截断预览」，原文按 SHA-256 去重后压缩保存在 response.archive.dir 下：
+ * <pre>
+ * reports/responses/ab/ab12...ef.json.gz
+ * </pre>
+ * 相同响应只存一份；可通过 {@link #load(String)} 用单元格内容或哈希取回完整响应体。
+ */
+public class ResponseArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseArchive.class);
+
+    private static final String REF_PREFIX = "@archive:sha256:";
+    private static final Pattern REF_PATTERN = Pattern.compile("sha256:([0-9a-f]{64})");
+
+    public static boolean isEnabled() {
+        return EnvConfig.getBoolean("response.archive.enabled", false);
+    }
+
+    /**
+     * 生成写入单元格的内容：未开启归档时原样返回
+     *
+     * @param body 完整响应体
+     * @return 「@archive:sha256:哈希 (字节数 B)」+ 换行 + 预览
+     */
+    public static String toCellValue(String body) {
+        if (!isEnabled() || body == null || body.isEmpty()) return body;
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String hash = store(bytes);
+
+        int previewChars = EnvConfig.getInt("response.archive.previewChars", 200);
+        String preview = body.length() > previewChars ? body.substring(0, previewChars) + "..." : body;
+        return REF_PREFIX + hash + " (" + bytes.length + " B)\n" + preview;
+    }
+
+    /**
+     * 生成写入单元格的内容（完整响应）：落盘的大响应体边读边计算哈希并压缩，不整段加载到内存；
+     * 未开启归档时，落盘的大响应体只返回前 log.body.maxChars 个字符的预览
+     */
+    public static String toCellValue(ApiResponse response) {
+        if (response == null) return null;
+        if (!response.isSpilled()) return toCellValue(response.getBody());
+        if (!isEnabled()) return response.preview(EnvConfig.getInt("log.body.maxChars", 2000));
+
+        String hash;
+        try (InputStream in = response.openBody()) {
+            hash = store(in);
+        } catch (IOException e) {
+            throw new RuntimeException("❌ 响应体归档失败: " + e.getMessage(), e);
+        }
+        String preview = response.preview(EnvConfig.getInt("response.archive.previewChars", 200));
+        return REF_PREFIX + hash + " (" + response.getBodySize() + " B)\n" + preview;
+    }
+
+    /**
+     * 保存响应体，已存在则跳过
+     *
+     * @return 响应体的 SHA-256（小写十六进制）
+     */
+    public static String store(byte[] body) {
+        String hash = sha256(body);
+        Path target = pathOf(hash);
+        if (Files.exists(target)) return hash;
+
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                out.write(body);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // 并发写入了同一内容
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("❌ 响应体归档失败: " + e.getMessage(), e);
+        }
+        return hash;
+    }
+
+    /**
+     * 按流保存响应体：先压缩写入归档目录下的临时文件，同时计算哈希，再改名为内容寻址路径；已存在则丢弃临时文件
+     *
+     * @return 响应体的 SHA-256（小写十六进制）
+     */
+    public static String store(InputStream body) {
+        Path root = Paths.get(EnvConfig.getOrDefault("response.archive.dir", "reports/responses"));
+        Path tmp = null;
+        try {
+            Files.createDirectories(root);
+            tmp = Files.createTempFile(root, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(body, digest);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            Path target = pathOf(hash);
+            if (Files.exists(target)) return hash;
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // 并发写入了同一内容
+            }
+            return hash;
+        } catch (Exception e) {
+            throw new RuntimeException("❌ 响应体归档失败: " + e.getMessage(), e);
+        } finally {
+            try {
+                if (tmp != null) Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // 归档目录中的残留临时文件不影响结果
+            }
+        }
+    }
+
+    /**
+     * 取回完整响应体
+     *
+     * @param refOrHash 单元格内容（含 sha256:哈希）或 64 位哈希本身
+     * @return 完整响应体；不是归档引用时原样返回
+     */
+    public static String load(String refOrHash) {
+        if (refOrHash == null) return null;
+        Matcher matcher = REF_PATTERN.matcher(refOrHash);
+        String hash;
+        if (matcher.find()) {
+            hash = matcher.group(1);
+        } else if (refOrHash.matches("[0-9a-f]{64}")) {
+            hash = refOrHash;
+        } else {
+            return refOrHash;
+        }
+
+        Path path = pathOf(hash);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            logger.warn("⚠️ 归档的响应体不存在: {}", path);
+            throw new RuntimeException("❌ 归档的响应体不存在: " + hash, e);
+        } catch (IOException e) {
+            throw new RuntimeException("❌ 读取归档响应体失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 判断单元格内容是否为归档引用
+     */
+    public static boolean isReference(String cellValue) {
+        return cellValue != null && cellValue.startsWith(REF_PREFIX);
+    }
+
+    private static Path pathOf(String hash) {
+        String dir = EnvConfig.getOrDefault("response.archive.dir", "reports/responses");
+        return Paths.get(dir, hash.substring(0, 2), hash + ".json.gz");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (Exception e) {
+            throw new RuntimeException("❌ 计算响应体哈希失败", e);
+        }
+    }
+}
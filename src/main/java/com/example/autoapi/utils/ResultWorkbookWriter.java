@@ -0,0 +1,138 @@
+package com.example.autoapi.utils;
+
+import com.example.autoapi.config.EnvConfig;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ResultWorkbookWriter：把测试结果流式写入独立的结果工作簿（excel.write.mode=separate）
+ * <p>
+ * 不再改动源用例文件。结果追加到 reports/results/时间戳-results.xlsx 中，
+ * 每个源 Sheet 对应一个结果 Sheet，列为 rowIndex / status / response / duration / error。
+ * 基于 SXSSFWorkbook，内存中只保留最近 excel.result.windowRows 行，其余行落到临时文件，
+ * 十万级用例时内存占用也保持稳定。套件结束时调用 {@link #close()} 生成最终文件。
+ */
+public class ResultWorkbookWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultWorkbookWriter.class);
+
+    private static final String[] COLUMNS = {"rowIndex", "status", "response", "duration", "error"};
+    private static final int MAX_CELL_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    private static SXSSFWorkbook workbook;
+    private static String outputPath;
+    private static boolean shutdownHookAdded;
+
+    // 源文件 + Sheet -> 结果 Sheet
+    private static final Map<String, SXSSFSheet> sheets = new HashMap<>();
+    private static final Set<String> usedNames = new HashSet<>();
+
+    /**
+     * 追加一条结果
+     */
+    public static synchronized void append(ExcelWriter.Result result) {
+        if (workbook == null) open();
+
+        SXSSFSheet sheet = sheets.computeIfAbsent(result.filePath() + "#" + result.sheetName(),
+                k -> createSheet(result.sheetName()));
+
+        Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+        row.createCell(0).setCellValue(result.rowIndex());
+        row.createCell(1).setCellValue(shortStatus(result.status()));
+        row.createCell(2).setCellValue(truncate(result.response()));
+        if (result.durationMs() >= 0) {
+            row.createCell(3).setCellValue(result.durationMs());
+        }
+        row.createCell(4).setCellValue(truncate(result.error()));
+    }
+
+    /**
+     * 写出结果文件并释放临时文件；之后再有结果写入会生成新的工作簿
+     */
+    public static synchronized void close() {
+        if (workbook == null) return;
+
+        try {
+            File file = new File(outputPath);
+            File dir = file.getParentFile();
+            if (dir != null) dir.mkdirs();
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+            logger.info("📊 结果工作簿已生成: {}", outputPath);
+        } catch (Exception e) {
+            throw new RuntimeException("❌ 结果工作簿写入失败: " + e.getMessage(), e);
+        } finally {
+            try {
+                // close() 同时删除 SXSSF 临时文件
+                workbook.close();
+            } catch (Exception ignored) {
+                // 结果已写出，关闭失败可忽略
+            }
+            workbook = null;
+            sheets.clear();
+            usedNames.clear();
+        }
+    }
+
+    private static void open() {
+        int window = EnvConfig.getInt("excel.result.windowRows", 100);
+        workbook = new SXSSFWorkbook(window);
+        workbook.setCompressTempFiles(true);
+
+        String dir = EnvConfig.getOrDefault("excel.result.dir", "reports/results");
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        outputPath = dir + "/" + timestamp + "-results.xlsx";
+
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(ResultWorkbookWriter::close, "result-workbook-shutdown"));
+            shutdownHookAdded = true;
+        }
+        logger.info("📝 结果将写入独立工作簿: {}", outputPath);
+    }
+
+    private static SXSSFSheet createSheet(String sourceSheetName) {
+        String base = WorkbookUtil.createSafeSheetName(sourceSheetName);
+        String name = base;
+        for (int i = 2; !usedNames.add(name); i++) {
+            String suffix = "(" + i + ")";
+            name = base.substring(0, Math.min(base.length(), 31 - suffix.length())) + suffix;
+        }
+
+        SXSSFSheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            header.createCell(i).setCellValue(COLUMNS[i]);
+        }
+        return sheet;
+    }
+
+    /**
+     * "FAIL-401: xxx" -> "FAIL-401"，详细信息放在 error 列
+     */
+    private static String shortStatus(String status) {
+        if (status == null) return "";
+        int idx = status.indexOf(':');
+        return idx > 0 ? status.substring(0, idx).trim() : status;
+    }
+
+    // 单元格最多 32767 个字符，超出部分截断
+    private static String truncate(String value) {
+        if (value == null) return "";
+        return value.length() > MAX_CELL_LENGTH ? value.substring(0, MAX_CELL_LENGTH) : value;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.autoapi.validator;
+
+import com.example.autoapi.base.ApiResponse;
+import com.example.autoapi.config.EnvConfig;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JsonDocument：一次解析、多次取值的 JSON 响应句柄
+ * <p>
+ * 首次取值时才解析（不做 JSON 校验的用例不付出解析成本），之后所有路径都在同一棵树上求值，
+ * 一行用例的 checkField / checkFields / extractField 合计只解析一次响应。
+ * 解析失败同样只发生一次，之后的取值直接抛出同样的断言错误。
+ * 路径语法见 {@link JsonPath}，路径只编译一次并缓存。
+ * <p>
+ * 响应体不小于 json.streaming.thresholdBytes 时，只含字段与下标的路径改用 {@link StreamingJsonExtractor} 流式读取，
+ * 取到即停，不构建整棵树；可先调用 {@link #prefetch(Collection)} 一次遍历取出一行用例用到的全部路径。
+ * 流式读取找不到路径或响应不是合法 JSON 时，退回完整解析，错误信息与完整解析一致。
+ */
+public final class JsonDocument {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // 达到该大小（字节，字符串按字符数）的响应体才走流式读取，<= 0 表示关闭
+    private static final long STREAMING_THRESHOLD = EnvConfig.getInt("json.streaming.thresholdBytes", 1024 * 1024);
+
+    private final String json;
+    private final ApiResponse response;
+
+    private JsonNode root;
+    private Exception parseError;
+
+    // 流式读取到的节点；流式读取没找到的路径记入 missed，之后直接走完整解析
+    private final Map<String, JsonNode> streamed = new HashMap<>();
+    private final Set<String> missed = new HashSet<>();
+    private boolean streamingFailed;
+
+    private JsonDocument(String json, ApiResponse response) {
+        this.json = json;
+        this.response = response;
+    }
+
+    /**
+     * 基于 JSON 字符串
+     */
+    public static JsonDocument of(String json) {
+        return new JsonDocument(json, null);
+    }
+
+    /**
+     * 基于响应：从响应流解析，落盘的大响应直接从临时文件读取，不经过 String
+     */
+    public static JsonDocument of(ApiResponse response) {
+        return new JsonDocument(null, response);
+    }
+
+    /**
+     * 整棵 JSON 树
+     */
+    public JsonNode root() {
+        return root(null);
+    }
+
+    /**
+     * 按路径取节点，确定路径不存在时抛出 AssertionError
+     * 如 jsonPath: "Orderdetails[0].ProductName"；通配 / 过滤路径返回全部匹配节点组成的数组，聚合路径返回聚合值
+     */
+    public JsonNode node(String jsonPath) {
+        JsonPath path = compile(jsonPath);
+        JsonNode found = streamed(jsonPath, path);
+        if (found != null) return found;
+
+        JsonNode root = root(jsonPath);
+        try {
+            return path.evaluate(root);
+        } catch (RuntimeException e) {
+            throw new AssertionError("❌ 解析 JSON 路径失败: " + jsonPath, e);
+        }
+    }
+
+    /**
+     * 按路径取全部匹配节点，确定路径指向数组时返回数组元素；供 all: / any: 断言逐个比较
+     */
+    public List<JsonNode> nodes(String jsonPath) {
+        JsonPath path = compile(jsonPath);
+        JsonNode found = streamed(jsonPath, path);
+        if (found != null) {
+            if (!found.isArray()) return List.of(found);
+            List<JsonNode> elements = new ArrayList<>(found.size());
+            found.forEach(elements::add);
+            return elements;
+        }
+
+        JsonNode root = root(jsonPath);
+        try {
+            return path.evaluateAll(root);
+        } catch (RuntimeException e) {
+            throw new AssertionError("❌ 解析 JSON 路径失败: " + jsonPath, e);
+        }
+    }
+
+    /**
+     * 按路径取值用于比较：JSON null 返回 null；确定路径沿用 asText()，
+     * 通配 / 过滤路径匹配到多个节点时返回 JSON 数组文本（只有一个时返回该节点的值）
+     */
+    public String value(String jsonPath) {
+        return valueOf(node(jsonPath), !compile(jsonPath).isDefinite());
+    }
+
+    /**
+     * 按路径取文本值，null 字段返回空串
+     */
+    public String text(String jsonPath) {
+        String value = value(jsonPath);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 路径是否存在
+     */
+    public boolean has(String jsonPath) {
+        try {
+            node(jsonPath);
+            return true;
+        } catch (AssertionError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 大响应预取：一次流式遍历取出全部可流式读取的路径，之后对这些路径的取值不再读取响应体
+     * 小响应、已完整解析或不可流式读取的路径直接忽略
+     */
+    public synchronized JsonDocument prefetch(Collection<String> jsonPaths) {
+        if (!useStreaming()) return this;
+
+        Map<String, List<Object>> pending = new LinkedHashMap<>();
+        for (String jsonPath : jsonPaths) {
+            if (jsonPath == null || jsonPath.isBlank()) continue;
+            if (streamed.containsKey(jsonPath) || missed.contains(jsonPath)) continue;
+            List<Object> steps;
+            try {
+                steps = JsonPath.compile(jsonPath).streamSteps();
+            } catch (IllegalArgumentException e) {
+                continue; // 语法错误留给取值时按原逻辑报错
+            }
+            if (steps != null) pending.put(jsonPath, steps);
+        }
+        if (pending.isEmpty()) return this;
+
+        try (JsonParser parser = response != null ? mapper.getFactory().createParser(response.openBody())
+                : mapper.getFactory().createParser(json)) {
+            Map<String, JsonNode> found = StreamingJsonExtractor.extract(parser, pending);
+            streamed.putAll(found);
+            for (String jsonPath : pending.keySet()) {
+                if (!found.containsKey(jsonPath)) missed.add(jsonPath);
+            }
+        } catch (Exception e) {
+            // 不是合法 JSON 等：不再尝试流式读取，由完整解析给出错误
+            streamingFailed = true;
+        }
+        return this;
+    }
+
+    /**
+     * 流式读取路径，不适用或没找到时返回 null
+     */
+    private synchronized JsonNode streamed(String jsonPath, JsonPath path) {
+        JsonNode found = streamed.get(jsonPath);
+        if (found != null || !useStreaming() || path.streamSteps() == null || missed.contains(jsonPath)) return found;
+
+        prefetch(List.of(jsonPath));
+        return streamed.get(jsonPath);
+    }
+
+    private boolean useStreaming() {
+        if (STREAMING_THRESHOLD <= 0 || root != null || parseError != null || streamingFailed) return false;
+        long size = response != null ? response.getBodySize() : json == null ? 0 : json.length();
+        return size >= STREAMING_THRESHOLD;
+    }
+
+    /**
+     * 单个节点的比较值；expand 为 true 时数组 / 对象按 JSON 文本输出
+     */
+    static String valueOf(JsonNode node, boolean expand) {
+        if (node.isNull()) return null;
+        if (expand && node.isArray() && node.size() == 1) return valueOf(node.get(0), true);
+        return expand && node.isContainerNode() ? node.toString() : node.asText();
+    }
+
+    static ArrayNode arrayOf(List<JsonNode> nodes) {
+        return mapper.createArrayNode().addAll(nodes);
+    }
+
+    private static JsonPath compile(String jsonPath) {
+        try {
+            return JsonPath.compile(jsonPath);
+        } catch (IllegalArgumentException e) {
+            throw new AssertionError("❌ 解析 JSON 路径失败: " + jsonPath, e);
+        }
+    }
+
+    /**
+     * @param jsonPath 触发解析的路径，仅用于错误信息
+     */
+    private synchronized JsonNode root(String jsonPath) {
+        if (root == null && parseError == null) {
+            try {
+                if (response != null) {
+                    try (InputStream in = response.openBody()) {
+                        root = mapper.readTree(in);
+                    }
+                } else {
+                    root = mapper.readTree(json);
+                }
+            } catch (Exception e) {
+                parseError = e;
+            }
+        }
+        if (parseError != null) {
+            String message = response != null || jsonPath == null ? "❌ 解析响应 JSON 失败" : "❌ 解析 JSON 路径失败: " + jsonPath;
+            throw new AssertionError(message, parseError);
+        }
+        return root;
+    }
+}
@@ -0,0 +1,502 @@
+package com.example.autoapi.validator;
+
+import com.example.autoapi.config.EnvConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JsonPath：预编译的 JSON 路径表达式
+ * <p>
+ * 路径字符串只解析一次，编译结果按原字符串缓存（json.path.cacheSize），之后求值只是顺序遍历步骤。
+ * 支持的语法（开头的 $ / $. 可省略）：
+ * <pre>
+ * data.list[0].name            字段与下标（原有写法，行为不变）
+ * items[-1]                    负下标，从末尾数
+ * items[*].id / data.*         通配：数组全部元素或对象全部字段值
+ * ..id / data..price           递归下降：任意深度的同名字段
+ * items[?(@.status=='PAID')]   过滤：==、!=、&gt;、&gt;=、&lt;、&lt;=，或 [?(@.field)] 判断字段存在
+ * ['a.b']                      含特殊字符的字段名
+ * items.size() / items[*].amount.sum()   聚合：size() / sum() / min() / max() / avg()，只能放在末尾
+ * </pre>
+ * 只含字段与下标的路径为「确定路径」，按原有规则严格求值：字段不存在或下标越界时抛出 AssertionError；
+ * 含通配、递归或过滤的路径返回全部匹配节点，缺失的分支直接跳过。
+ */
+public final class JsonPath {
+
+    // 原始路径 -> 编译结果；超过上限后不再缓存新路径，直接现场编译
+    private static final Map<String, JsonPath> cache = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED = EnvConfig.getInt("json.path.cacheSize", 1000);
+
+    private enum Aggregate { SIZE, SUM, MIN, MAX, AVG }
+
+    private final String path;
+    private final Step[] steps;
+    private final Aggregate aggregate;
+    private final boolean definite;
+    private final List<Object> streamSteps;
+
+    private JsonPath(String path, List<Step> steps, Aggregate aggregate) {
+        this.path = path;
+        this.steps = steps.toArray(new Step[0]);
+        this.aggregate = aggregate;
+        boolean simple = true;
+        for (Step step : this.steps) {
+            if (!(step instanceof Field) && !(step instanceof Index)) simple = false;
+        }
+        this.definite = simple;
+        this.streamSteps = toStreamSteps();
+    }
+
+    /**
+     * 编译（或从缓存中取出）路径表达式
+     *
+     * @throws IllegalArgumentException 语法错误
+     */
+    public static JsonPath compile(String path) {
+        JsonPath compiled = cache.get(path);
+        if (compiled != null) return compiled;
+
+        compiled = new Parser(path).parse();
+        if (cache.size() < MAX_CACHED) cache.putIfAbsent(path, compiled);
+        return compiled;
+    }
+
+    /**
+     * 是否为只含字段与下标、最多匹配一个节点的路径
+     */
+    public boolean isDefinite() {
+        return definite;
+    }
+
+    /**
+     * 是否以聚合函数结尾
+     */
+    public boolean isAggregate() {
+        return aggregate != null;
+    }
+
+    /**
+     * 可流式求值时返回各步骤（String 为字段名，Integer 为下标），否则返回 null
+     * 要求为确定路径、不含聚合与负下标（负下标需要先知道数组长度）
+     */
+    List<Object> streamSteps() {
+        return streamSteps;
+    }
+
+    private List<Object> toStreamSteps() {
+        if (!definite || aggregate != null) return null;
+        List<Object> segments = new ArrayList<>(steps.length);
+        for (Step step : steps) {
+            if (step instanceof Field field) {
+                segments.add(field.name);
+            } else {
+                Index index = (Index) step;
+                if (index.index < 0) return null;
+                segments.add(index.index);
+            }
+        }
+        return List.copyOf(segments);
+    }
+
+    /**
+     * 求值为单个节点：确定路径返回该节点（严格模式）；聚合路径返回聚合结果；
+     * 其他路径返回全部匹配节点组成的数组
+     */
+    public JsonNode evaluate(JsonNode root) {
+        if (aggregate != null) return aggregate(root);
+        if (definite) return walk(root);
+
+        List<JsonNode> matches = select(root);
+        return JsonDocument.arrayOf(matches);
+    }
+
+    /**
+     * 求值为节点列表：确定路径指向数组时返回其元素，否则返回该节点本身；
+     * 其他路径返回全部匹配节点。all: / any: 断言基于此结果
+     */
+    public List<JsonNode> evaluateAll(JsonNode root) {
+        if (aggregate != null) return List.of(aggregate(root));
+        if (definite) {
+            JsonNode node = walk(root);
+            if (!node.isArray()) return List.of(node);
+            List<JsonNode> elements = new ArrayList<>(node.size());
+            node.forEach(elements::add);
+            return elements;
+        }
+        return select(root);
+    }
+
+    /**
+     * 确定路径的严格求值，错误信息与原 getNode 保持一致
+     */
+    private JsonNode walk(JsonNode root) {
+        JsonNode current = root;
+        for (Step step : steps) {
+            if (step instanceof Field field) {
+                current = current.path(field.name);
+                // 紧跟下标的字段由下标步骤统一报错（"数组字段不存在或索引越界"）
+                if (current.isMissingNode() && !field.indexed) {
+                    throw new AssertionError("❌ 路径不存在: " + field.label + "（完整路径：" + path + "）");
+                }
+            } else {
+                Index index = (Index) step;
+                int i = index.index < 0 ? current.size() + index.index : index.index;
+                if (!current.isArray() || i < 0 || i >= current.size()) {
+                    throw new AssertionError("❌ 路径错误，数组字段不存在或索引越界: " + index.label);
+                }
+                current = current.get(i);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 宽松求值：返回全部匹配节点
+     */
+    private List<JsonNode> select(JsonNode root) {
+        List<JsonNode> current = new ArrayList<>();
+        current.add(root);
+        for (Step step : steps) {
+            List<JsonNode> next = new ArrayList<>();
+            for (JsonNode node : current) step.apply(node, next);
+            current = next;
+            if (current.isEmpty()) break;
+        }
+        return current;
+    }
+
+    private JsonNode aggregate(JsonNode root) {
+        List<JsonNode> values;
+        if (definite) {
+            JsonNode node = walk(root);
+            if (aggregate == Aggregate.SIZE) {
+                if (node.isContainerNode()) return number(BigDecimal.valueOf(node.size()));
+                if (node.isTextual()) return number(BigDecimal.valueOf(node.asText().length()));
+                throw new AssertionError("❌ size() 只能用于数组、对象或字符串: " + path);
+            }
+            values = new ArrayList<>();
+            if (node.isArray()) node.forEach(values::add);
+            else values.add(node);
+        } else {
+            values = select(root);
+            if (aggregate == Aggregate.SIZE) return number(BigDecimal.valueOf(values.size()));
+        }
+
+        if (values.isEmpty()) {
+            if (aggregate == Aggregate.SUM) return number(BigDecimal.ZERO);
+            throw new AssertionError("❌ 路径没有可聚合的数值: " + path);
+        }
+
+        BigDecimal result = null;
+        for (JsonNode value : values) {
+            BigDecimal n = toNumber(value);
+            if (n == null) throw new AssertionError("❌ 聚合的值不是数字: " + value + "（路径：" + path + "）");
+            if (result == null) result = n;
+            else if (aggregate == Aggregate.MIN) result = result.min(n);
+            else if (aggregate == Aggregate.MAX) result = result.max(n);
+            else result = result.add(n);
+        }
+        if (aggregate == Aggregate.AVG) result = result.divide(BigDecimal.valueOf(values.size()), MathContext.DECIMAL64);
+        return number(result);
+    }
+
+    /**
+     * 聚合结果以文本节点返回，整数不带小数点，避免科学计数法
+     */
+    private static JsonNode number(BigDecimal value) {
+        String text = value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+        return TextNode.valueOf(text);
+    }
+
+    private static BigDecimal toNumber(JsonNode node) {
+        if (node.isNumber()) return node.decimalValue();
+        if (node.isTextual()) {
+            try {
+                return new BigDecimal(node.asText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    // ================= 步骤 =================
+
+    private interface Step {
+        /**
+         * 宽松求值：把 node 上的匹配结果加入 out
+         */
+        void apply(JsonNode node, List<JsonNode> out);
+    }
+
+    /**
+     * 字段；indexed 表示同一段中紧跟下标（如 list[0] 的 list）
+     */
+    private record Field(String name, String label, boolean indexed) implements Step {
+        public void apply(JsonNode node, List<JsonNode> out) {
+            JsonNode child = node.get(name);
+            if (child != null && node.isObject()) out.add(child);
+        }
+    }
+
+    private record Index(int index, String label) implements Step {
+        public void apply(JsonNode node, List<JsonNode> out) {
+            if (!node.isArray()) return;
+            int i = index < 0 ? node.size() + index : index;
+            if (i >= 0 && i < node.size()) out.add(node.get(i));
+        }
+    }
+
+    private record Wildcard() implements Step {
+        public void apply(JsonNode node, List<JsonNode> out) {
+            if (node.isContainerNode()) node.forEach(out::add);
+        }
+    }
+
+    /**
+     * 递归下降：节点本身及其全部后代，后续步骤作用于其中每一个
+     */
+    private record Descend() implements Step {
+        public void apply(JsonNode node, List<JsonNode> out) {
+            out.add(node);
+            if (node.isContainerNode()) {
+                for (JsonNode child : node) apply(child, out);
+            }
+        }
+    }
+
+    /**
+     * 过滤：[?(@.a.b op literal)]，literal 为 null 时只判断字段存在
+     */
+    private record Filter(String[] fields, String op, String literal, boolean quoted) implements Step {
+        public void apply(JsonNode node, List<JsonNode> out) {
+            if (!node.isContainerNode()) return;
+            for (JsonNode element : node) {
+                if (matches(element)) out.add(element);
+            }
+        }
+
+        private boolean matches(JsonNode element) {
+            JsonNode value = element;
+            for (String field : fields) {
+                value = value.path(field);
+            }
+            if (value.isMissingNode()) return false;
+            if (op == null) return true;
+
+            if (!quoted && "null".equals(literal)) {
+                return op.equals("==") == value.isNull();
+            }
+            BigDecimal left = quoted ? null : toNumber(value);
+            BigDecimal right = null;
+            if (left != null) {
+                try {
+                    right = new BigDecimal(literal);
+                } catch (NumberFormatException ignored) {
+                    // 字面量不是数字，按字符串比较
+                }
+            }
+            int cmp = right != null ? left.compareTo(right) : value.asText().compareTo(literal);
+            return switch (op) {
+                case "==" -> cmp == 0;
+                case "!=" -> cmp != 0;
+                case ">" -> cmp > 0;
+                case ">=" -> cmp >= 0;
+                case "<" -> cmp < 0;
+                case "<=" -> cmp <= 0;
+                default -> false;
+            };
+        }
+    }
+
+    // ================= 解析 =================
+
+    private static final class Parser {
+        private final String path;
+        private final List<Step> steps = new ArrayList<>();
+        private Aggregate aggregate;
+        private int pos;
+        // 当前段（两个 . 之间）的起始位置，用于错误信息中的段文本
+        private int chunkStart;
+
+        Parser(String path) {
+            this.path = path;
+        }
+
+        JsonPath parse() {
+            if (path == null || path.isBlank()) throw error("路径为空");
+            if (path.startsWith("$")) {
+                pos = 1;
+                if (pos < path.length() && path.charAt(pos) == '.' && !path.startsWith("..", pos)) pos++;
+            }
+            chunkStart = pos;
+
+            boolean first = true;
+            while (pos < path.length()) {
+                if (aggregate != null) throw error("聚合函数必须放在路径末尾");
+                char c = path.charAt(pos);
+                if (path.startsWith("..", pos)) {
+                    pos += 2;
+                    steps.add(new Descend());
+                    chunkStart = pos;
+                    if (pos < path.length() && path.charAt(pos) == '[') {
+                        parseBracket();
+                    } else {
+                        parseName();
+                    }
+                } else if (c == '.') {
+                    pos++;
+                    chunkStart = pos;
+                    parseName();
+                } else if (c == '[') {
+                    parseBracket();
+                } else if (first) {
+                    parseName();
+                } else {
+                    throw error("位置 " + pos + " 处应为 . 或 [");
+                }
+                first = false;
+            }
+            return new JsonPath(path, steps, aggregate);
+        }
+
+        private void parseName() {
+            int start = pos;
+            while (pos < path.length() && path.charAt(pos) != '.' && path.charAt(pos) != '[') pos++;
+            String name = path.substring(start, pos);
+            if (name.isEmpty()) throw error("位置 " + start + " 处缺少字段名");
+
+            if (name.equals("*")) {
+                steps.add(new Wildcard());
+            } else if (name.endsWith("()")) {
+                aggregate = switch (name) {
+                    case "size()", "length()" -> Aggregate.SIZE;
+                    case "sum()" -> Aggregate.SUM;
+                    case "min()" -> Aggregate.MIN;
+                    case "max()" -> Aggregate.MAX;
+                    case "avg()" -> Aggregate.AVG;
+                    default -> throw error("不支持的函数: " + name);
+                };
+            } else {
+                boolean indexed = pos < path.length() && path.charAt(pos) == '[';
+                steps.add(new Field(name, chunkEnd(), indexed));
+            }
+        }
+
+        private void parseBracket() {
+            int close = findClose(pos);
+            String content = path.substring(pos + 1, close).trim();
+            pos = close + 1;
+
+            if (content.equals("*")) {
+                steps.add(new Wildcard());
+            } else if (content.startsWith("?(") && content.endsWith(")")) {
+                steps.add(parseFilter(content.substring(2, content.length() - 1).trim()));
+            } else if (isQuoted(content)) {
+                steps.add(new Field(content.substring(1, content.length() - 1), chunkText(), false));
+            } else {
+                try {
+                    steps.add(new Index(Integer.parseInt(content), chunkText()));
+                } catch (NumberFormatException e) {
+                    throw error("无法识别的下标: [" + content + "]");
+                }
+            }
+        }
+
+        private Filter parseFilter(String expr) {
+            if (!expr.startsWith("@")) throw error("过滤表达式必须以 @ 开头: " + expr);
+
+            String op = null;
+            int opAt = -1;
+            for (String candidate : new String[]{"==", "!=", ">=", "<=", ">", "<"}) {
+                int at = indexOutsideQuotes(expr, candidate);
+                if (at > 0 && (opAt < 0 || at < opAt)) {
+                    op = candidate;
+                    opAt = at;
+                }
+            }
+
+            String left = (op == null ? expr : expr.substring(0, opAt)).trim();
+            String[] fields = left.equals("@") ? new String[0] : left.substring(left.startsWith("@.") ? 2 : 1).split("\\.");
+            if (op == null) return new Filter(fields, null, null, false);
+
+            String literal = expr.substring(opAt + op.length()).trim();
+            boolean quoted = isQuoted(literal);
+            if (quoted) literal = literal.substring(1, literal.length() - 1);
+            if (literal.isEmpty() && !quoted) throw error("过滤表达式缺少比较值: " + expr);
+            return new Filter(fields, op, literal, quoted);
+        }
+
+        /**
+         * 与 [ 匹配的 ]，跳过引号内的字符
+         */
+        private int findClose(int open) {
+            char quote = 0;
+            for (int i = open + 1; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == ']') {
+                    return i;
+                }
+            }
+            throw error("缺少 ]");
+        }
+
+        private static int indexOutsideQuotes(String s, String target) {
+            char quote = 0;
+            for (int i = 0; i <= s.length() - target.length(); i++) {
+                char c = s.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (s.startsWith(target, i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean isQuoted(String s) {
+            return s.length() >= 2 && (s.charAt(0) == '\'' || s.charAt(0) == '"') && s.charAt(s.length() - 1) == s.charAt(0);
+        }
+
+        /**
+         * 当前段到下一个 . 为止的文本，如 list[0] 中字段 list 的段文本
+         */
+        private String chunkEnd() {
+            int end = pos;
+            while (end < path.length() && path.charAt(end) != '.') {
+                if (path.charAt(end) == '[') end = findClose(end);
+                end++;
+            }
+            return path.substring(chunkStart, Math.min(end, path.length()));
+        }
+
+        /**
+         * 当前段从起点到刚解析完的 ] 为止的文本
+         */
+        private String chunkText() {
+            return path.substring(chunkStart, pos);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("❌ JSON 路径语法错误（" + path + "）: " + message);
+        }
+    }
+}
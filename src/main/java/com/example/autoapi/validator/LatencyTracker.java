@@ -0,0 +1,78 @@
+package com.example.autoapi.validator;
+
+import com.example.autoapi.config.EnvConfig;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LatencyTracker：按接口累计响应耗时样本，用于 p95 等分位数断言（线程安全）
+ * <p>
+ * 每个 key（通常是 文件#Sheet + 方法 + 原始 URL）最多保留 sla.samples.max 个最近样本，
+ * 超出后覆盖最旧的样本。
+ */
+public class LatencyTracker {
+
+    private static final int MAX_SAMPLES = Math.max(1, EnvConfig.getInt("sla.samples.max", 1000));
+
+    private static final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    /**
+     * 环形缓冲区
+     */
+    private static final class Samples {
+        private final long[] values = new long[MAX_SAMPLES];
+        private int count;
+        private int next;
+
+        synchronized void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            if (count < values.length) count++;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * 记录一次耗时，durationMs &lt; 0（未知）时忽略
+     */
+    public static void record(String key, long durationMs) {
+        if (durationMs < 0) return;
+        samples.computeIfAbsent(key, k -> new Samples()).add(durationMs);
+    }
+
+    /**
+     * 当前样本数
+     */
+    public static int sampleCount(String key) {
+        Samples s = samples.get(key);
+        return s == null ? 0 : s.snapshot().length;
+    }
+
+    /**
+     * 第 percentile 百分位的耗时（最近秩法），没有样本时返回 -1
+     *
+     * @param percentile 0 ~ 100，如 95
+     */
+    public static long percentile(String key, double percentile) {
+        Samples s = samples.get(key);
+        if (s == null) return -1;
+        long[] values = s.snapshot();
+        if (values.length == 0) return -1;
+
+        Arrays.sort(values);
+        int rank = (int) Math.ceil(percentile / 100.0 * values.length);
+        return values[Math.min(Math.max(rank, 1), values.length) - 1];
+    }
+
+    /**
+     * 清空所有样本
+     */
+    public static void reset() {
+        samples.clear();
+    }
+}
@@ -1,15 +1,16 @@
 package com.example.autoapi.validator;
 
+import com.example.autoapi.base.ApiResponse;
+import com.example.autoapi.config.EnvConfig;
 import com.example.autoapi.utils.ResponseDataStore;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public class ResponseValidator {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
-
     /**
      * 校验状态码
      */
@@ -19,36 +20,136 @@ public class ResponseValidator {
         }
     }
 
+    /**
+     * 校验单次响应耗时不超过 maxDurationMs
+     */
+    public static void validateDuration(long actualMs, long maxDurationMs) {
+        if (actualMs > maxDurationMs) {
+            throw new SlaViolationError("❌ 响应耗时超出 SLA，上限：" + maxDurationMs + " ms，实际：" + actualMs + " ms",
+                    actualMs, maxDurationMs);
+        }
+    }
+
+    /**
+     * 校验 key 对应接口累计耗时的 p95 不超过 p95Ms
+     * 样本数不足 sla.p95.minSamples 时分位数没有意义，不做判断
+     *
+     * @return 是否已执行校验
+     */
+    public static boolean validateP95(String key, long p95Ms) {
+        int minSamples = Math.max(1, EnvConfig.getInt("sla.p95.minSamples", 5));
+        if (LatencyTracker.sampleCount(key) < minSamples) return false;
+
+        long p95 = LatencyTracker.percentile(key, 95);
+        if (p95 > p95Ms) {
+            throw new SlaViolationError("❌ 响应耗时 p95 超出 SLA，上限：" + p95Ms + " ms，实际：" + p95 + " ms（"
+                    + LatencyTracker.sampleCount(key) + " 个样本）", p95, p95Ms);
+        }
+        return true;
+    }
+
     /**
      * 校验字段内容（支持 not_null、regex:、contains:、具体值）
+     * 路径支持通配、过滤与聚合（见 {@link JsonPath}）；期望值前加 all: / any: 时要求全部 / 任一匹配节点满足规则，
+     * 如 items[*].status 对应 all:PAID，items[?(@.status=='PAID')].size() 对应 2
      */
     public static void validateJsonField(String json, String jsonPath, String expectedValue) {
+        validateJsonField(JsonDocument.of(json), jsonPath, expectedValue);
+    }
+
+    /**
+     * 校验字段内容：直接从响应流解析，大响应无需先转成 String
+     */
+    public static void validateJsonField(ApiResponse response, String jsonPath, String expectedValue) {
+        validateJsonField(JsonDocument.of(response), jsonPath, expectedValue);
+    }
+
+    /**
+     * 校验字段内容：在已解析的文档上求值，同一响应的多次校验共用一个 JsonDocument
+     */
+    public static void validateJsonField(JsonDocument document, String jsonPath, String expectedValue) {
         try {
-            JsonNode node = getNode(json, jsonPath);
-            String actual = node.isNull() ? null : node.asText();
+            if (expectedValue.startsWith("all:") || expectedValue.startsWith("any:")) {
+                assertEach(document.nodes(jsonPath), jsonPath, expectedValue.substring(4), expectedValue.startsWith("all:"));
+                return;
+            }
+            assertMatches("字段 [" + jsonPath + "]", document.value(jsonPath), expectedValue);
 
-            if ("not_null".equalsIgnoreCase(expectedValue)) {
-                if (actual == null || actual.isEmpty()) {
-                    throw new AssertionError("❌ 字段 [" + jsonPath + "] 预期为非空，但实际为空");
-                }
-            } else if (expectedValue.startsWith("regex:")) {
-                String pattern = expectedValue.substring(6);
-                if (actual == null || !Pattern.matches(pattern, actual)) {
-                    throw new AssertionError("❌ 字段 [" + jsonPath + "] 不匹配正则: " + pattern);
-                }
-            } else if (expectedValue.startsWith("contains:")) {
-                String part = expectedValue.substring(9);
-                if (actual == null || !actual.contains(part)) {
-                    throw new AssertionError("❌ 字段 [" + jsonPath + "] 不包含: " + part);
-                }
-            } else {
-                if (!expectedValue.equals(actual)) {
-                    throw new AssertionError("❌ 字段 [" + jsonPath + "] 不匹配，预期: " + expectedValue + "，实际: " + actual);
+        } catch (Exception e) {
+            throw new AssertionError("❌ 字段验证失败：" + jsonPath, e);
+        }
+    }
+
+    /**
+     * 校验响应头（规则同字段校验：not_null、regex:、contains:、具体值），头名不区分大小写
+     */
+    public static void validateHeader(Map<String, String> headers, String headerName, String expectedValue) {
+        String actual = null;
+        if (headers != null) {
+            actual = headers.get(headerName);
+            if (actual == null) {
+                for (Map.Entry<String, String> e : headers.entrySet()) {
+                    if (e.getKey().equalsIgnoreCase(headerName)) {
+                        actual = e.getValue();
+                        break;
+                    }
                 }
             }
+        }
 
+        try {
+            assertMatches("响应头 [" + headerName + "]", actual, expectedValue);
         } catch (Exception e) {
-            throw new AssertionError("❌ 字段验证失败：" + jsonPath, e);
+            throw new AssertionError("❌ 响应头验证失败：" + headerName, e);
+        }
+    }
+
+    public static void validateHeader(ApiResponse response, String headerName, String expectedValue) {
+        validateHeader(response.getHeaders(), headerName, expectedValue);
+    }
+
+    /**
+     * all:（每个节点都满足）/ any:（至少一个节点满足）；没有匹配节点时视为失败，避免空列表让断言恒真
+     */
+    private static void assertEach(List<JsonNode> nodes, String jsonPath, String rule, boolean all) {
+        if (nodes.isEmpty()) {
+            throw new AssertionError("❌ 字段 [" + jsonPath + "] 没有匹配的节点");
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            try {
+                assertMatches("字段 [" + jsonPath + "] 第 " + (i + 1) + " 个元素", JsonDocument.valueOf(nodes.get(i), true), rule);
+                if (!all) return;
+            } catch (AssertionError e) {
+                if (all) throw e;
+            }
+        }
+        if (!all) {
+            throw new AssertionError("❌ 字段 [" + jsonPath + "] 的 " + nodes.size() + " 个元素都不满足: " + rule);
+        }
+    }
+
+    /**
+     * 按 not_null / regex: / contains: / 具体值 规则比较
+     */
+    private static void assertMatches(String label, String actual, String expectedValue) {
+        if ("not_null".equalsIgnoreCase(expectedValue)) {
+            if (actual == null || actual.isEmpty()) {
+                throw new AssertionError("❌ " + label + " 预期为非空，但实际为空");
+            }
+        } else if (expectedValue.startsWith("regex:")) {
+            String pattern = expectedValue.substring(6);
+            if (actual == null || !Pattern.matches(pattern, actual)) {
+                throw new AssertionError("❌ " + label + " 不匹配正则: " + pattern);
+            }
+        } else if (expectedValue.startsWith("contains:")) {
+            String part = expectedValue.substring(9);
+            if (actual == null || !actual.contains(part)) {
+                throw new AssertionError("❌ " + label + " 不包含: " + part);
+            }
+        } else {
+            if (!expectedValue.equals(actual)) {
+                throw new AssertionError("❌ " + label + " 不匹配，预期: " + expectedValue + "，实际: " + actual);
+            }
         }
     }
 
@@ -56,6 +157,17 @@ public class ResponseValidator {
      * 多字段校验
      */
     public static void validateMultipleJsonFields(String json, String paths, String values) {
+        validateMultipleJsonFields(JsonDocument.of(json), paths, values);
+    }
+
+    public static void validateMultipleJsonFields(ApiResponse response, String paths, String values) {
+        validateMultipleJsonFields(JsonDocument.of(response), paths, values);
+    }
+
+    /**
+     * 多字段校验：所有路径共用一次解析
+     */
+    public static void validateMultipleJsonFields(JsonDocument document, String paths, String values) {
         String[] pathArray = paths.split(";");
         String[] valueArray = values.split(";");
 
@@ -64,7 +176,7 @@ public class ResponseValidator {
         }
 
         for (int i = 0; i < pathArray.length; i++) {
-            validateJsonField(json, pathArray[i].trim(), valueArray[i].trim());
+            validateJsonField(document, pathArray[i].trim(), valueArray[i].trim());
         }
     }
 
@@ -72,53 +184,52 @@ public class ResponseValidator {
      * 判断字段是否存在
      */
     public static void assertFieldExists(String json, String jsonPath) {
-        getNode(json, jsonPath); // 会抛出异常表示不存在
+        assertFieldExists(JsonDocument.of(json), jsonPath);
+    }
+
+    public static void assertFieldExists(ApiResponse response, String jsonPath) {
+        assertFieldExists(JsonDocument.of(response), jsonPath);
+    }
+
+    public static void assertFieldExists(JsonDocument document, String jsonPath) {
+        document.node(jsonPath); // 会抛出异常表示不存在
     }
 
     /**
      * 从 JSON 提取字段并保存至 ResponseDataStore
      */
     public static void extractJsonField(String json, String jsonPath, String storeKey) {
+        extractJsonField(JsonDocument.of(json), jsonPath, storeKey);
+    }
+
+    public static void extractJsonField(ApiResponse response, String jsonPath, String storeKey) {
+        extractJsonField(JsonDocument.of(response), jsonPath, storeKey);
+    }
+
+    public static void extractJsonField(JsonDocument document, String jsonPath, String storeKey) {
+        ResponseDataStore.put(storeKey, readJsonField(document, jsonPath));
+    }
+
+    /**
+     * 读取字段值但不写入 ResponseDataStore（如压测时存入虚拟用户自己的变量表），null 字段返回空串
+     */
+    public static String readJsonField(ApiResponse response, String jsonPath) {
+        return readJsonField(JsonDocument.of(response), jsonPath);
+    }
+
+    public static String readJsonField(JsonDocument document, String jsonPath) {
         try {
-            JsonNode node = getNode(json, jsonPath);
-            ResponseDataStore.put(storeKey, node.isNull() ? "" : node.asText());
+            return document.text(jsonPath);
         } catch (Exception e) {
             throw new AssertionError("❌ 提取字段失败: " + jsonPath, e);
         }
     }
 
     /**
-     * 内部方法：支持嵌套对象 & 数组路径
-     * 如 jsonPath: "Orderdetails[0].ProductName"
+     * 从响应流解析 JSON 树；落盘的大响应直接从临时文件读取，不经过 String
+     * 需要对同一响应多次取值时请使用 {@link JsonDocument}
      */
-    private static JsonNode getNode(String json, String jsonPath) {
-        try {
-            JsonNode current = mapper.readTree(json);
-            String[] segments = jsonPath.split("\\.");
-
-            for (String segment : segments) {
-                if (segment.contains("[") && segment.endsWith("]")) {
-                    String field = segment.substring(0, segment.indexOf("["));
-                    int index = Integer.parseInt(segment.substring(segment.indexOf("[") + 1, segment.length() - 1));
-
-                    current = current.path(field);
-                    if (!current.isArray() || index >= current.size()) {
-                        throw new AssertionError("❌ 路径错误，数组字段不存在或索引越界: " + segment);
-                    }
-                    current = current.get(index);
-                } else {
-                    current = current.path(segment);
-                    if (current.isMissingNode()) {
-                        throw new AssertionError("❌ 路径不存在: " + segment + "（完整路径：" + jsonPath + "）");
-                    }
-                }
-            }
-
-            return current;
-
-        } catch (Exception e) {
-            throw new AssertionError("❌ 解析 JSON 路径失败: " + jsonPath, e);
-        }
+    public static JsonNode readTree(ApiResponse response) {
+        return JsonDocument.of(response).root();
     }
 }
-
@@ -0,0 +1,28 @@
+package com.example.autoapi.validator;
+
+/**
+ * SlaViolationError：响应耗时超出用例设定的时延预算
+ * <p>
+ * 与普通断言失败区分开，结果写为 FAIL-SLA，便于在功能回归中单独筛出性能退化。
+ */
+public class SlaViolationError extends AssertionError {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long actualMs;
+    private final long limitMs;
+
+    public SlaViolationError(String message, long actualMs, long limitMs) {
+        super(message);
+        this.actualMs = actualMs;
+        this.limitMs = limitMs;
+    }
+
+    public long getActualMs() {
+        return actualMs;
+    }
+
+    public long getLimitMs() {
+        return limitMs;
+    }
+}
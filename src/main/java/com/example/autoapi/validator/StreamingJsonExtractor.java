@@ -0,0 +1,137 @@
+package com.example.autoapi.validator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StreamingJsonExtractor：基于 JsonParser 的流式取值，不构建整棵 JSON 树
+ * <p>
+ * 把要取的确定路径（只含字段与非负下标）合并成一棵前缀树，顺序读取 token：
+ * 不在任何路径上的子树直接 skipChildren() 跳过，只有目标节点本身才读成 JsonNode；
+ * 所有路径都取到后立即停止，不再读取响应体剩余部分。
+ * 内存与耗时取决于目标字段在文档中的位置，而不是响应体大小。
+ * <p>
+ * 只负责「找到」：找不到的路径不出现在结果中，由调用方退回完整解析以得到准确的错误信息。
+ * 目标字段之后的内容不会被读取，因此也不会校验其 JSON 语法；同一对象中出现重复字段时取第一次出现的值
+ * （完整解析取最后一次）。
+ */
+final class StreamingJsonExtractor {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Trie {
+        private final Map<String, Trie> fields = new HashMap<>();
+        private final Map<Integer, Trie> indexes = new HashMap<>();
+        private final List<String> targets = new ArrayList<>();
+        // 重复字段只取第一次出现
+        private boolean visited;
+
+        Trie child(Object segment) {
+            return segment instanceof Integer i
+                    ? indexes.computeIfAbsent(i, k -> new Trie())
+                    : fields.computeIfAbsent((String) segment, k -> new Trie());
+        }
+    }
+
+    private StreamingJsonExtractor() {
+    }
+
+    /**
+     * 一次遍历取出多个路径
+     *
+     * @param parser 尚未读取任何 token 的解析器，由调用方关闭
+     * @param paths  原始路径 -> 步骤（String 为字段名，Integer 为非负下标）
+     * @return 原始路径 -> 节点，只包含找到的路径
+     */
+    static Map<String, JsonNode> extract(JsonParser parser, Map<String, List<Object>> paths) throws IOException {
+        Trie root = new Trie();
+        for (Map.Entry<String, List<Object>> entry : paths.entrySet()) {
+            Trie node = root;
+            for (Object segment : entry.getValue()) {
+                node = node.child(segment);
+            }
+            node.targets.add(entry.getKey());
+        }
+
+        Map<String, JsonNode> found = new HashMap<>();
+        if (parser.nextToken() != null) {
+            read(parser, root, found, paths.size());
+        }
+        return found;
+    }
+
+    /**
+     * 读取以当前 token 开始的值；返回 false 时该值已被完整读完
+     *
+     * @return 是否所有路径都已取到（此时立即停止，不再读取后续 token）
+     */
+    private static boolean read(JsonParser parser, Trie node, Map<String, JsonNode> found, int total) throws IOException {
+        if (!node.targets.isEmpty()) {
+            // 目标节点：读成 JsonNode；更深的路径直接在这棵小树上取
+            JsonNode value = parser.currentToken() == JsonToken.VALUE_NULL ? NullNode.getInstance() : mapper.readTree(parser);
+            collect(value, node, found);
+            return found.size() >= total;
+        }
+
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT && !node.fields.isEmpty()) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Trie child = node.fields.get(parser.currentName());
+                parser.nextToken();
+                if (child == null || child.visited) {
+                    parser.skipChildren();
+                    continue;
+                }
+                child.visited = true;
+                if (read(parser, child, found, total)) return true;
+            }
+            return false;
+        }
+
+        if (token == JsonToken.START_ARRAY && !node.indexes.isEmpty()) {
+            int index = 0;
+            JsonToken next;
+            while ((next = parser.nextToken()) != JsonToken.END_ARRAY && next != null) {
+                Trie child = node.indexes.get(index++);
+                if (child == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (read(parser, child, found, total)) return true;
+            }
+            return false;
+        }
+
+        parser.skipChildren();
+        return false;
+    }
+
+    /**
+     * 在已读出的子树上取本节点及后代的目标路径
+     */
+    private static void collect(JsonNode value, Trie node, Map<String, JsonNode> found) {
+        for (String target : node.targets) {
+            found.putIfAbsent(target, value);
+        }
+        node.fields.forEach((name, child) -> {
+            JsonNode next = value.isObject() ? value.get(name) : null;
+            if (next != null) collect(next, child, found);
+        });
+        node.indexes.forEach((index, child) -> {
+            JsonNode next = value.isArray() && index < value.size() ? value.get(index) : null;
+            if (next != null) collect(next, child, found);
+        });
+    }
+}
@@ -6,10 +6,17 @@ import com.example.autoapi.notifier.NotificationService;
 import com.example.autoapi.utils.ExcelSource;
 import com.example.autoapi.utils.ExcelWriter;
 import com.example.autoapi.utils.ParamResolver;
+import com.example.autoapi.validator.JsonDocument;
+import com.example.autoapi.validator.LatencyTracker;
 import com.example.autoapi.validator.ResponseValidator;
+import com.example.autoapi.validator.SlaViolationError;
 import org.testng.SkipException;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * BaseApiTest：所有接口测试用例的基类，封装统一执行逻辑
@@ -35,7 +42,10 @@ public abstract class BaseApiTest extends BaseTest {
      */
     protected void executeAndValidate(Map<String, String> data) {
         String response = "";
+        long durationMs = -1;
+        int statusCode = -1;
         int rowIndex = Integer.parseInt(data.getOrDefault("rowIndex", "-1"));
+        ApiResponse apiResponse = null;
 
         try {
             // 自动推导测试来源（通过反射获取注解）
@@ -54,6 +64,9 @@ public abstract class BaseApiTest extends BaseTest {
             String headersRaw = data.getOrDefault("headers", "");
 
             String resolvedHeaders = ParamResolver.resolveWithStore(headersRaw);
+
+            // cache=false：本行绕过 GET 响应缓存
+            boolean useCache = !"false".equalsIgnoreCase(data.getOrDefault("cache", "").trim());
             test.log(Status.INFO, "最终请求头（已解析）: " + resolvedHeaders);
 
             String baseUrl = EnvConfig.get("base.url"); // 👈 读取配置
@@ -72,44 +85,103 @@ public abstract class BaseApiTest extends BaseTest {
             String checkFields = data.get("checkFields");
             String expectedValues = data.get("expectedValues");
 
+            String checkHeader = data.get("checkHeader");
+            String expectedHeader = data.get("expectedHeader");
+
             String extractField = data.get("extractField");
             String storeAs = data.get("storeAs");
 
+            // 时延预算（毫秒），为空表示不校验
+            String maxDurationMs = data.get("maxDurationMs");
+            String p95Ms = data.get("p95Ms");
+
             test.log(Status.INFO, "请求方法: " + method);
             test.log(Status.INFO, "请求地址: " + fullUrl);
             test.log(Status.INFO, "请求体: " + body);
             test.log(Status.INFO, "请求头: " + headersRaw);
 
             // 执行请求
-            response = ApiClient.execute(method, fullUrl, body, resolvedHeaders);
-            test.log(Status.INFO, "响应体: " + response);
-            System.out.println("响应体: " + response);
+            apiResponse = ApiClient.executeForResponse(method, fullUrl, body, resolvedHeaders, useCache);
+            statusCode = apiResponse.getStatusCode();
+            durationMs = apiResponse.getDurationMs();
+            // 同一 Sheet 中方法与原始 URL 相同的行视为同一接口，累计耗时样本；缓存命中没有真实耗时，不计入
+            String latencyKey = filePath + "#" + sheetName + " " + method.toUpperCase() + " " + rawUrl;
+            if (apiResponse.isCacheHit()) {
+                test.log(Status.INFO, "📦 命中响应缓存，未发出请求");
+            } else {
+                LatencyTracker.record(latencyKey, durationMs);
+            }
+            // 大响应只在报告与控制台中输出前 log.body.maxChars 个字符；回写 Excel 与归档使用完整响应
+            String preview = apiResponse.preview(EnvConfig.getInt("log.body.maxChars", 2000));
+            response = apiResponse.isSpilled() ? preview : apiResponse.getBody();
+            test.log(Status.INFO, "响应状态码: " + statusCode + "，耗时: " + durationMs + " ms");
+            if (apiResponse.getAttemptCount() > 1) {
+                test.log(Status.WARNING, "🔁 共请求 " + apiResponse.getAttemptCount() + " 次，重试额外耗时 " + apiResponse.getRetryOverheadMs() + " ms");
+            }
+            test.log(Status.INFO, "响应头: " + apiResponse.getHeaders());
+            test.log(Status.INFO, "响应体: " + preview);
+            System.out.println("响应体: " + preview);
 
             // 验证响应
-            ResponseValidator.validateStatusCode(200, expectedStatus);
+            ResponseValidator.validateStatusCode(statusCode, expectedStatus);
+
+            // 校验响应头，如果响应头名和期望值不为空才执行
+            if (checkHeader != null && !checkHeader.trim().isEmpty() && expectedHeader != null && !expectedHeader.trim().isEmpty()) {
+                ResponseValidator.validateHeader(apiResponse, checkHeader.trim(), expectedHeader);
+            }
+
+            // 以下字段校验与提取共用一次解析（首次取值时才解析）
+            JsonDocument document = JsonDocument.of(apiResponse);
+
+            // 大响应：一次流式遍历预取本行用到的全部路径，取到即停，不构建整棵树
+            List<String> jsonPaths = new ArrayList<>();
+            jsonPaths.add(checkField);
+            if (checkFields != null) {
+                for (String path : checkFields.split(";")) jsonPaths.add(path.trim());
+            }
+            jsonPaths.add(extractField);
+            document.prefetch(jsonPaths);
 
             // 校验字段，如果字段和期望值不为空才执行
             if (checkField != null && !checkField.trim().isEmpty() && expectedValue != null && !expectedValue.trim().isEmpty()) {
-                ResponseValidator.validateJsonField(response, checkField, expectedValue);
+                ResponseValidator.validateJsonField(document, checkField, expectedValue);
             }
 
             // 多字段校验，如果字段和期望值不为空才执行
             if (checkFields != null && !checkFields.trim().isEmpty() && expectedValues != null && !expectedValues.trim().isEmpty()) {
-                ResponseValidator.validateMultipleJsonFields(response, checkFields, expectedValues);
+                ResponseValidator.validateMultipleJsonFields(document, checkFields, expectedValues);
             }
 
             // 提取字段并存储，如果字段和存储名称不为空才执行
             if (extractField != null && !extractField.trim().isEmpty() && storeAs != null && !storeAs.trim().isEmpty()) {
-                ResponseValidator.extractJsonField(response, extractField, storeAs);
+                ResponseValidator.extractJsonField(document, extractField, storeAs);
                 test.info("📥 字段提取并缓存: ${" + storeAs + "}");
             }
 
-            markPass(response, rowIndex);
+            // 时延校验放在功能断言与字段提取之后：慢但正确的响应仍可供后续用例取值
+            if (maxDurationMs != null && !maxDurationMs.trim().isEmpty()) {
+                ResponseValidator.validateDuration(durationMs, parseMillis("maxDurationMs", maxDurationMs));
+            }
+            if (p95Ms != null && !p95Ms.trim().isEmpty()) {
+                if (ResponseValidator.validateP95(latencyKey, parseMillis("p95Ms", p95Ms))) {
+                    test.log(Status.INFO, "⏱️ p95 耗时: " + LatencyTracker.percentile(latencyKey, 95) + " ms（"
+                            + LatencyTracker.sampleCount(latencyKey) + " 个样本）");
+                }
+            }
+
+            markPass(response, apiResponse, rowIndex, durationMs);
 
         } catch (AssertionError ae) {
-            markFail(response, rowIndex, ae.getMessage(), ae);
+            markFail(response, apiResponse, rowIndex, statusCode, ae.getMessage(), ae, durationMs);
         } catch (Exception e) {
-            markFail(response, rowIndex, e.toString(), e);
+            CircuitOpenException circuitOpen = CircuitOpenException.find(e);
+            if (circuitOpen != null) {
+                markCircuitOpen(response, rowIndex, circuitOpen, durationMs);
+            }
+            markFail(response, apiResponse, rowIndex, statusCode, e.toString(), e, durationMs);
+        } finally {
+            // 校验与回写都已完成，删除落盘的大响应体
+            if (apiResponse != null) apiResponse.close();
         }
     }
 
@@ -118,36 +190,114 @@ public abstract class BaseApiTest extends BaseTest {
      * 测试通过写入日志与 Excel
      */
     protected void markPass(String response, int rowIndex) {
+        markPass(response, rowIndex, -1);
+    }
+
+    /**
+     * 测试通过写入日志与 Excel（带请求耗时）
+     */
+    protected void markPass(String response, int rowIndex, long durationMs) {
+        markPass(response, null, rowIndex, durationMs);
+    }
+
+    private void markPass(String response, ApiResponse apiResponse, int rowIndex, long durationMs) {
         test.pass("✅ 接口测试通过");
         if (rowIndex > 0) {
-            ExcelWriter.writeResult(filePath, sheetName, rowIndex, response, "PASS");
+            writeResult(response, apiResponse, rowIndex, "PASS", durationMs, null);
+        }
+    }
+
+    /**
+     * 目标主机熔断中：http.circuit.onOpen=skip 时标记为跳过，否则交给 markFail 按失败处理
+     */
+    protected void markCircuitOpen(String response, int rowIndex, CircuitOpenException e, long durationMs) {
+        if (!"skip".equalsIgnoreCase(EnvConfig.get("http.circuit.onOpen"))) return;
+
+        test.skip("⚠️ " + e.getMessage());
+        if (rowIndex > 0) {
+            ExcelWriter.writeResult(filePath, sheetName, rowIndex, response, "SKIP-CIRCUIT: " + e.getMessage(), durationMs, e.getMessage());
         }
+        throw new SkipException(e.getMessage());
     }
 
     /**
      * 测试失败时写入错误与通知
      */
     protected void markFail(String response, int rowIndex, String msg, Throwable e) {
+        markFail(response, rowIndex, msg, e, -1);
+    }
+
+    /**
+     * 测试失败时写入错误与通知（带请求耗时）
+     */
+    protected void markFail(String response, int rowIndex, String msg, Throwable e, long durationMs) {
+        markFail(response, rowIndex, -1, msg, e, durationMs);
+    }
+
+    /**
+     * 测试失败时写入错误与通知（带实际 HTTP 状态码，未拿到响应时为 -1）
+     */
+    protected void markFail(String response, int rowIndex, int statusCode, String msg, Throwable e, long durationMs) {
+        markFail(response, null, rowIndex, statusCode, msg, e, durationMs);
+    }
+
+    /**
+     * @param apiResponse 完整响应，未拿到响应时为 null；业务码检查与 Excel 回写基于它而不是截断后的 response
+     */
+    private void markFail(String response, ApiResponse apiResponse, int rowIndex, int statusCode, String msg, Throwable e, long durationMs) {
         String statusPrefix = "";
 
-        // 尝试从响应中解析状态码
-        if (response != null) {
-            if (response.contains("\"code\":404")) statusPrefix = "FAIL-404: ";
-            else if (response.contains("\"code\":401")) statusPrefix = "FAIL-401: ";
-            else if (response.contains("\"code\":500")) statusPrefix = "FAIL-500: ";
-            else if (response.contains("\"code\":400")) statusPrefix = "FAIL-400: ";
+        // 时延超标单独标记；其次使用实际 HTTP 状态码，拿不到时再尝试从响应体中解析业务码
+        if (e instanceof SlaViolationError) {
+            statusPrefix = "FAIL-SLA: ";
+        } else if (statusCode >= 400) {
+            statusPrefix = "FAIL-" + statusCode + ": ";
+        } else if (apiResponse != null || response != null) {
+            // 有完整响应时在完整响应体中查找（大响应体流式查找），否则只能查 response 文本
+            Predicate<String> body = apiResponse != null ? apiResponse::bodyContains : response::contains;
+            if (body.test("\"code\":404")) statusPrefix = "FAIL-404: ";
+            else if (body.test("\"code\":401")) statusPrefix = "FAIL-401: ";
+            else if (body.test("\"code\":500")) statusPrefix = "FAIL-500: ";
+            else if (body.test("\"code\":400")) statusPrefix = "FAIL-400: ";
             else statusPrefix = "FAIL: ";
         }
 
         String fullMessage = statusPrefix + msg;
 
         test.fail("❌ 断言失败: " + fullMessage);
-        NotificationService.notifyAllChannels(fullMessage);
+        // 熔断期间的失败不逐条通知，熔断器打开时已统一通知过一次
+        if (CircuitOpenException.find(e) == null) {
+            NotificationService.notifyAllChannels(fullMessage);
+        }
 
         if (rowIndex > 0) {
-            ExcelWriter.writeResult(filePath, sheetName, rowIndex, response, fullMessage);
+            writeResult(response, apiResponse, rowIndex, fullMessage, durationMs, msg);
         }
 
         throw new RuntimeException(fullMessage, e);
     }
+
+    /**
+     * 有完整响应时按完整响应回写（大响应体按流归档），否则回写 response 文本
+     */
+    private void writeResult(String response, ApiResponse apiResponse, int rowIndex, String status, long durationMs, String error) {
+        if (apiResponse != null) {
+            ExcelWriter.writeResult(filePath, sheetName, rowIndex, apiResponse, status, durationMs, error);
+        } else {
+            ExcelWriter.writeResult(filePath, sheetName, rowIndex, response, status, durationMs, error);
+        }
+    }
+
+    /**
+     * 解析时延预算列：兼容 Excel 数值单元格读出的 "500.0"，小数或非数字视为用例配置错误
+     */
+    private static long parseMillis(String column, String value) {
+        try {
+            long millis = new BigDecimal(value.trim()).longValueExact();
+            if (millis >= 0) return millis;
+        } catch (NumberFormatException | ArithmeticException ignored) {
+            // 统一在下面报错
+        }
+        throw new IllegalArgumentException("❌ 用例配置错误: " + column + "=" + value + "（应为非负整数毫秒）");
+    }
 }
@@ -4,15 +4,24 @@ import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.example.autoapi.auth.TokenManager;
+import com.example.autoapi.config.EnvConfig;
 import com.example.autoapi.notifier.EmailSender;
+import com.example.autoapi.utils.ExcelSource;
+import com.example.autoapi.utils.ExcelWriter;
 import com.example.autoapi.utils.ReportCleaner;
 import com.example.autoapi.utils.ResponseDataStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 import org.testng.annotations.*;
 
 import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 public class BaseTest {
 
@@ -24,7 +33,7 @@ public class BaseTest {
     private static final Logger logger = LoggerFactory.getLogger(BaseTest.class);
 
     @BeforeSuite
-    public void setupSuite() {
+    public void setupSuite(ITestContext context) {
         // 清空变量池
         ResponseDataStore.clear();
 
@@ -38,6 +47,11 @@ public class BaseTest {
         extent.attachReporter(sparkReporter);
         logger.info("✅ 报告初始化完成: {}", reportPath);
 
+        // 预热连接，避免首条用例的耗时包含 DNS / 握手开销；关闭预热或回放模式下不扫描用例
+        if (ConnectionWarmer.isEnabled()) {
+            ConnectionWarmer.warmUp(collectOrigins(context));
+        }
+
         // ✅ 延迟登录，可在 BaseApiTest 控制是否登录
         if (shouldAutoLogin()) {
             TokenManager.loginAndStoreToken();
@@ -45,6 +59,47 @@ public class BaseTest {
         }
     }
 
+    /**
+     * 收集本次套件涉及的所有目标主机：base.url + 各 @ExcelSource 用例中写了完整地址的 url 列
+     */
+    protected Set<String> collectOrigins(ITestContext context) {
+        Set<String> origins = new LinkedHashSet<>();
+        String baseOrigin = ConnectionWarmer.originOf(EnvConfig.get("base.url"));
+        if (baseOrigin != null) origins.add(baseOrigin);
+        if (!EnvConfig.getBoolean("http.warmup.scanExcel", true)) return origins;
+
+        Set<String> sources = new HashSet<>();
+        for (ITestNGMethod testMethod : context.getSuite().getAllMethods()) {
+            ExcelSource source = testMethod.getConstructorOrMethod().getMethod().getAnnotation(ExcelSource.class);
+            if (source == null || !sources.add(source.file() + "#" + source.sheet())) continue;
+            try {
+                for (Map<String, String> row : ExcelReader.read(source.file(), source.sheet())) {
+                    String origin = originOfRaw(row.get("url"));
+                    if (origin != null) origins.add(origin);
+                }
+            } catch (Exception e) {
+                logger.warn("⚠️ 预热时读取用例失败 {} / {}: {}", source.file(), source.sheet(), e.getMessage());
+            }
+        }
+        return origins;
+    }
+
+    /**
+     * 只展开开头的配置占位符（如 ${base.url}），不调用 ${__seq} 等函数，避免预热消耗序列值
+     */
+    private static String originOfRaw(String rawUrl) {
+        if (rawUrl == null || rawUrl.isBlank()) return null;
+        String url = rawUrl.trim();
+        if (url.startsWith("${")) {
+            int end = url.indexOf('}');
+            if (end < 0 || url.startsWith("${__")) return null;
+            url = EnvConfig.get(url.substring(2, end)) + url.substring(end + 1);
+        }
+        if (!url.startsWith("http")) return null;
+        String origin = ConnectionWarmer.originOf(url);
+        return origin == null || origin.contains("${") ? null : origin;
+    }
+
     /**
      * 是否自动登录，可在 BaseApiTest 重写控制
      */
@@ -54,6 +109,10 @@ public class BaseTest {
 
     @AfterSuite
     public void tearDownSuite() {
+        // 批量写入模式下把剩余结果落盘
+        ExcelWriter.flush();
+        // 关闭被提前放弃的懒加载数据迭代器，释放解析线程与临时快照
+        ExcelRowIterator.closeAll();
         extent.flush();
         try {
             EmailSender.sendReport(reportPath);
@@ -0,0 +1,198 @@
+package com.example.autoapi.base;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * CircuitBreaker：打开条件、快速失败与半开探测的状态迁移
+ */
+public class CircuitBreakerTest {
+
+    private static final String HOST = "http://api.test:8080";
+    private static final long OPEN_MS = 50;
+
+    private final List<String> notifications = new ArrayList<>();
+
+    @BeforeMethod
+    public void clearNotifications() {
+        notifications.clear();
+    }
+
+    private CircuitBreaker breaker(int consecutive, int windowSize, int minCalls, double errorRate) {
+        return new CircuitBreaker(HOST, consecutive, windowSize, minCalls, errorRate, OPEN_MS, "502, 503,504", notifications::add);
+    }
+
+    /** 连续失败 3 次即打开，窗口条件不触发 */
+    private CircuitBreaker consecutiveBreaker() {
+        return breaker(3, 20, 100, 1.0);
+    }
+
+    private CircuitBreaker openBreaker() {
+        CircuitBreaker cb = consecutiveBreaker();
+        for (int i = 0; i < 3; i++) cb.record(503);
+        notifications.clear();
+        return cb;
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailuresAndNotifiesOnce() {
+        CircuitBreaker cb = consecutiveBreaker();
+        cb.record(503);
+        cb.record(502);
+        cb.acquire();
+        assertTrue(notifications.isEmpty());
+
+        cb.record(504);
+        assertEquals(notifications.size(), 1);
+        assertTrue(notifications.get(0).contains(HOST));
+        assertThrows(CircuitOpenException.class, cb::acquire);
+    }
+
+    @Test
+    public void successResetsConsecutiveCount() {
+        CircuitBreaker cb = consecutiveBreaker();
+        cb.record(503);
+        cb.record(503);
+        cb.record(200);
+        cb.record(503);
+        cb.record(503);
+        cb.acquire();
+        assertTrue(notifications.isEmpty());
+    }
+
+    @Test
+    public void opensOnErrorRateWithinWindow() {
+        CircuitBreaker cb = breaker(100, 10, 4, 0.5);
+        cb.record(200);
+        cb.record(503);
+        cb.record(200);
+        cb.acquire();
+        // 第 4 次失败：4 次中失败 2 次，达到 50%
+        cb.record(503);
+        assertEquals(notifications.size(), 1);
+        assertThrows(CircuitOpenException.class, cb::acquire);
+    }
+
+    @Test
+    public void errorRateIgnoredBelowMinCalls() {
+        CircuitBreaker cb = breaker(100, 10, 4, 0.5);
+        cb.record(503);
+        cb.record(503);
+        cb.record(503);
+        cb.acquire();
+        assertTrue(notifications.isEmpty());
+    }
+
+    @Test
+    public void windowSlidesOutOldFailures() {
+        CircuitBreaker cb = breaker(100, 4, 4, 0.75);
+        cb.record(503);
+        cb.record(503);
+        cb.record(200);
+        cb.record(200);
+        // 最早的失败被挤出窗口：[503, 200, 200, 503]，失败率 50% 不足 75%
+        cb.record(503);
+        cb.acquire();
+        assertTrue(notifications.isEmpty());
+    }
+
+    @Test
+    public void openBreakerFailsFastWithReason() {
+        CircuitBreaker cb = openBreaker();
+        CircuitOpenException e = expectThrows(CircuitOpenException.class, cb::acquire);
+        assertEquals(e.getHost(), HOST);
+        assertTrue(e.getMessage().contains("HTTP 503"), e.getMessage());
+        assertTrue(e.getRetryAt() > System.currentTimeMillis() - OPEN_MS);
+    }
+
+    @Test
+    public void halfOpenAllowsSingleProbe() throws InterruptedException {
+        CircuitBreaker cb = openBreaker();
+        Thread.sleep(OPEN_MS + 20);
+
+        cb.acquire();
+        assertThrows(CircuitOpenException.class, cb::acquire);
+    }
+
+    @Test
+    public void successfulProbeClosesBreaker() throws InterruptedException {
+        CircuitBreaker cb = openBreaker();
+        Thread.sleep(OPEN_MS + 20);
+
+        cb.acquire();
+        cb.record(200);
+        cb.acquire();
+        cb.acquire();
+
+        // 关闭后计数重新开始：再失败 2 次不打开
+        cb.record(503);
+        cb.record(503);
+        cb.acquire();
+        assertTrue(notifications.isEmpty());
+    }
+
+    @Test
+    public void failedProbeReopensWithoutNewNotification() throws InterruptedException {
+        CircuitBreaker cb = openBreaker();
+        Thread.sleep(OPEN_MS + 20);
+
+        cb.acquire();
+        cb.recordError(new ConnectException("refused"));
+        CircuitOpenException e = expectThrows(CircuitOpenException.class, cb::acquire);
+        assertTrue(e.getMessage().contains("refused"), e.getMessage());
+        assertTrue(notifications.isEmpty());
+
+        // 重新打开后同样在 openMs 后再次半开
+        Thread.sleep(OPEN_MS + 20);
+        cb.acquire();
+    }
+
+    @Test
+    public void nonIoErrorReleasesProbeSlot() throws InterruptedException {
+        CircuitBreaker cb = openBreaker();
+        Thread.sleep(OPEN_MS + 20);
+
+        cb.acquire();
+        cb.recordError(new InterruptedException());
+        // 探测名额已归还，下一个请求可以继续探测
+        cb.acquire();
+        assertThrows(CircuitOpenException.class, cb::acquire);
+    }
+
+    @Test
+    public void nestedIoExceptionCountsAsFailure() {
+        CircuitBreaker cb = consecutiveBreaker();
+        for (int i = 0; i < 3; i++) {
+            cb.recordError(new RuntimeException("wrapped", new ConnectException("refused")));
+        }
+        assertEquals(notifications.size(), 1);
+        assertThrows(CircuitOpenException.class, cb::acquire);
+    }
+
+    @Test
+    public void nonIoErrorsDoNotCount() {
+        CircuitBreaker cb = consecutiveBreaker();
+        for (int i = 0; i < 5; i++) {
+            cb.recordError(new IllegalStateException("boom"));
+        }
+        cb.acquire();
+        assertTrue(notifications.isEmpty());
+    }
+
+    @Test
+    public void statusOutsideFailureListIsSuccess() {
+        CircuitBreaker cb = consecutiveBreaker();
+        for (int i = 0; i < 5; i++) {
+            cb.record(500);
+            cb.record(404);
+        }
+        cb.acquire();
+        assertTrue(notifications.isEmpty());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.autoapi.base;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * RetryPolicy：可重试条件与退避时间上下界
+ */
+public class RetryPolicyTest {
+
+    private static RetryPolicy policy(int maxAttempts, boolean nonIdempotent) {
+        return new RetryPolicy(maxAttempts, 100, 1000, 5000, "429,5xx", nonIdempotent);
+    }
+
+    @Test
+    public void retriesConfiguredStatusesOnIdempotentMethods() {
+        RetryPolicy retry = policy(3, false);
+        assertTrue(retry.shouldRetry("GET", 1, 503));
+        assertTrue(retry.shouldRetry("get", 2, 429));
+        assertTrue(retry.shouldRetry("PUT", 1, 500));
+        assertFalse(retry.shouldRetry("GET", 1, 404));
+        assertFalse(retry.shouldRetry("GET", 1, 200));
+    }
+
+    @Test
+    public void neverRetriesNotImplementedOrVersionNotSupported() {
+        RetryPolicy retry = policy(3, false);
+        assertFalse(retry.shouldRetry("GET", 1, 501));
+        assertFalse(retry.shouldRetry("GET", 1, 505));
+    }
+
+    @Test
+    public void explicitlyListedStatusIsRetriedEvenIfExcludedFromRange() {
+        RetryPolicy retry = new RetryPolicy(3, 100, 1000, 5000, "501, 5xx", false);
+        assertTrue(retry.shouldRetry("GET", 1, 501));
+        assertFalse(retry.shouldRetry("GET", 1, 505));
+    }
+
+    @Test
+    public void stopsAtMaxAttempts() {
+        RetryPolicy retry = policy(3, false);
+        assertTrue(retry.shouldRetry("GET", 2, 503));
+        assertFalse(retry.shouldRetry("GET", 3, 503));
+        assertFalse(retry.shouldRetry("GET", 3, new ConnectException("refused")));
+        assertFalse(policy(1, false).shouldRetry("GET", 1, 503));
+    }
+
+    @Test
+    public void nonIdempotentMethodsRetryOnlyWhenEnabled() {
+        assertFalse(policy(3, false).shouldRetry("POST", 1, 503));
+        assertFalse(policy(3, false).shouldRetry("PATCH", 1, new HttpTimeoutException("read timed out")));
+        assertTrue(policy(3, true).shouldRetry("POST", 1, 503));
+        assertTrue(policy(3, true).shouldRetry("PATCH", 1, new HttpTimeoutException("read timed out")));
+    }
+
+    @Test
+    public void connectFailuresAreRetriedForAnyMethod() {
+        RetryPolicy retry = policy(3, false);
+        assertTrue(retry.shouldRetry("POST", 1, new ConnectException("refused")));
+        assertTrue(retry.shouldRetry("POST", 1, new HttpConnectTimeoutException("connect timed out")));
+    }
+
+    @Test
+    public void onlyIoErrorsAreRetried() {
+        RetryPolicy retry = policy(3, false);
+        assertTrue(retry.shouldRetry("GET", 1, new IOException("connection reset")));
+        assertFalse(retry.shouldRetry("GET", 1, new IllegalArgumentException("bad url")));
+        assertFalse(retry.shouldRetry("GET", 1, new InterruptedException()));
+    }
+
+    @Test
+    public void backoffStaysWithinExponentialCeiling() {
+        RetryPolicy retry = policy(10, false);
+        for (int i = 0; i < 500; i++) {
+            assertInRange(retry.delayMs(1, null), 0, 100);
+            assertInRange(retry.delayMs(2, null), 0, 200);
+            assertInRange(retry.delayMs(3, null), 0, 400);
+            assertInRange(retry.delayMs(4, null), 0, 800);
+            // 超过 maxBackoffMs 后封顶
+            assertInRange(retry.delayMs(5, null), 0, 1000);
+            assertInRange(retry.delayMs(60, null), 0, 1000);
+        }
+    }
+
+    @Test
+    public void backoffIsJittered() {
+        RetryPolicy retry = policy(10, false);
+        long first = retry.delayMs(5, null);
+        boolean varied = false;
+        for (int i = 0; i < 200 && !varied; i++) {
+            varied = retry.delayMs(5, null) != first;
+        }
+        assertTrue(varied, "200 次退避结果完全相同，说明没有抖动");
+    }
+
+    @Test
+    public void zeroBackoffMeansNoDelay() {
+        RetryPolicy retry = new RetryPolicy(3, 0, 1000, 5000, "5xx", false);
+        assertEquals(retry.delayMs(1, null), 0);
+        assertEquals(retry.delayMs(3, null), 0);
+    }
+
+    @Test
+    public void retryAfterSecondsOverridesBackoffAndIsCapped() {
+        RetryPolicy retry = policy(3, false);
+        assertEquals(retry.delayMs(1, Map.of("Retry-After", "2")), 2000);
+        assertEquals(retry.delayMs(1, Map.of("retry-after", " 3 ")), 3000);
+        assertEquals(retry.delayMs(1, Map.of("Retry-After", "120")), 5000);
+    }
+
+    @Test
+    public void retryAfterHttpDate() {
+        RetryPolicy retry = policy(3, false);
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+        assertEquals(retry.delayMs(1, Map.of("Retry-After", past)), 0);
+
+        String future = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(4));
+        assertInRange(retry.delayMs(1, Map.of("Retry-After", future)), 2000, 4000);
+    }
+
+    @Test
+    public void unparsableRetryAfterFallsBackToBackoff() {
+        RetryPolicy retry = policy(3, false);
+        for (int i = 0; i < 100; i++) {
+            assertInRange(retry.delayMs(1, Map.of("Retry-After", "soon")), 0, 100);
+        }
+    }
+
+    private static void assertInRange(long value, long min, long max) {
+        assertTrue(value >= min && value <= max, value + " 不在 [" + min + ", " + max + "] 内");
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.autoapi.load;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * LatencyHistogram：百分位计算与分桶误差
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(h.getCount(), 0);
+        assertEquals(h.getMax(), 0);
+        assertEquals(h.getMean(), 0.0);
+        assertEquals(h.percentile(50), 0);
+        assertEquals(h.percentile(99.9), 0);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int v = 1; v <= 100; v++) h.record(v);
+
+        assertEquals(h.getCount(), 100);
+        assertEquals(h.getMax(), 100);
+        assertEquals(h.getMean(), 50.5, 1e-9);
+        assertEquals(h.percentile(0), 1);
+        assertEquals(h.percentile(1), 1);
+        assertEquals(h.percentile(50), 50);
+        assertEquals(h.percentile(90), 90);
+        assertEquals(h.percentile(99), 99);
+        assertEquals(h.percentile(99.5), 100);
+        assertEquals(h.percentile(100), 100);
+    }
+
+    @Test
+    public void percentileUsesNearestRank() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(10);
+        h.record(20);
+        h.record(30);
+        // ceil(0.5 * 3) = 第 2 个
+        assertEquals(h.percentile(50), 20);
+        // ceil(0.67 * 3) = 第 3 个
+        assertEquals(h.percentile(67), 30);
+    }
+
+    @Test
+    public void largeValuesStayWithinRelativeError() {
+        long[] values = {128, 129, 1000, 4095, 4096, 123_456, 10_000_000, 987_654_321_123L, Long.MAX_VALUE / 2};
+        for (long v : values) {
+            assertWithinBucket(v);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            assertWithinBucket(128 + (random.nextLong() >>> 20));
+        }
+    }
+
+    /**
+     * 再记录一个更大的值，使 p50 落在 v 所在的桶且不被最大值截断：结果是桶上界，误差不超过 1/64
+     */
+    private static void assertWithinBucket(long v) {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(v);
+        h.record(Long.MAX_VALUE);
+        long p = h.percentile(50);
+        assertTrue(p >= v && p - v <= v / 64, v + " -> " + p);
+    }
+
+    @Test
+    public void percentileNeverExceedsMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(1000);
+        h.record(1001);
+        assertEquals(h.getMax(), 1001);
+        assertTrue(h.percentile(100) <= 1001);
+        assertTrue(h.percentile(50) <= 1001);
+    }
+
+    @Test
+    public void negativeValuesRecordAsZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        assertEquals(h.getCount(), 1);
+        assertEquals(h.getMax(), 0);
+        assertEquals(h.getMean(), 0.0);
+        assertEquals(h.percentile(100), 0);
+    }
+
+    @Test
+    public void addMergesCountsAndStatistics() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int v = 1; v <= 50; v++) a.record(v);
+        for (int v = 51; v <= 100; v++) b.record(v);
+
+        a.add(b);
+        assertEquals(a.getCount(), 100);
+        assertEquals(a.getMax(), 100);
+        assertEquals(a.getMean(), 50.5, 1e-9);
+        assertEquals(a.percentile(50), 50);
+        assertEquals(a.percentile(90), 90);
+
+        // 被合并的直方图保持不变
+        assertEquals(b.getCount(), 50);
+        assertEquals(b.percentile(0), 51);
+    }
+
+    @Test
+    public void concurrentRecordsAreNotLost() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) h.record(i % 500);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(h.getCount(), 80_000);
+        assertEquals(h.getMax(), 499);
+    }
+}
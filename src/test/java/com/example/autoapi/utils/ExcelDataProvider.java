@@ -1,9 +1,12 @@
 package com.example.autoapi.utils;
 
 import com.example.autoapi.base.ExcelReader;
+import com.example.autoapi.base.ExcelRowIterator;
+import com.example.autoapi.config.EnvConfig;
 import org.testng.annotations.DataProvider;
 
 import java.lang.reflect.Method;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -14,6 +17,8 @@ import java.util.Map;
  * 示例：
  * @Test(dataProvider = "Excel", dataProviderClass = ExcelDataProvider.class)
  * @ExcelSource(file = "src/test/resources/testcases/api_tests.xlsx", sheet = "Login")
+ *
+ * 超大 Sheet 可改用 dataProvider = "ExcelLazy"，边读边执行
  */
 public class ExcelDataProvider {
 
@@ -44,5 +49,44 @@ public class ExcelDataProvider {
         return result;
     }
 
+    /**
+     * 懒加载版本：返回 Iterator，由后台线程流式解析 Sheet，
+     * skip=true 的行在解析时即被过滤，测试可在 Sheet 读完前开始执行。
+     * 迭代结束或读取失败时关闭解析线程；TestNG 提前停止迭代时由 BaseTest 在套件结束时统一关闭
+     *
+     * @param testMethod 当前正在执行的测试方法（反射传入）
+     * @return Iterator<Object[]>，每个元素是一行 Map
+     */
+    @DataProvider(name = "ExcelLazy")
+    public static Iterator<Object[]> provideExcelDataLazily(Method testMethod) {
+        ExcelSource source = testMethod.getAnnotation(ExcelSource.class);
+        if (source == null) {
+            throw new IllegalArgumentException("❌ 缺少 @ExcelSource 注解");
+        }
+
+        ExcelRowIterator rows = new ExcelRowIterator(source.file(), source.sheet(),
+                row -> !"true".equalsIgnoreCase(row.getOrDefault("skip", "false")),
+                EnvConfig.getInt("excel.stream.bufferRows", 256));
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    if (rows.hasNext()) return true;
+                } catch (RuntimeException e) {
+                    rows.close();
+                    throw e;
+                }
+                rows.close();
+                return false;
+            }
+
+            @Override
+            public Object[] next() {
+                return new Object[]{rows.next()};
+            }
+        };
+    }
+
 
 }
@@ -0,0 +1,70 @@
+package com.example.autoapi.utils;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.*;
+
+/**
+ * ParamTemplate：预编译结果必须与原正则 \$\{(.*?)} 的替换结果逐字一致
+ */
+public class ParamTemplateTest {
+
+    private static final Pattern LEGACY = Pattern.compile("\\$\\{(.*?)}");
+
+    private static final Function<String, String> ECHO = key -> "<" + key + ">";
+
+    @DataProvider
+    public Object[][] inputs() {
+        return new Object[][]{
+                {"no placeholders"},
+                {"${a}"},
+                {"prefix ${a} middle ${b} suffix"},
+                {"${a}${b}"},
+                {"${}"},
+                {"unclosed ${a and text"},
+                {"${a${b}}"},
+                {"$ {a} ${a}"},
+                {"${a\n} ${b}"},
+                {"{\"id\":\"${order_id}\",\"n\":${__random(1,9)}}"},
+                {"${a} then unclosed ${"},
+        };
+    }
+
+    @Test(dataProvider = "inputs")
+    public void rendersLikeLegacyRegex(String input) {
+        Matcher m = LEGACY.matcher(input);
+        StringBuilder expected = new StringBuilder();
+        while (m.find()) {
+            m.appendReplacement(expected, Matcher.quoteReplacement(ECHO.apply(m.group(1))));
+        }
+        m.appendTail(expected);
+
+        assertEquals(ParamTemplate.compile(input).render(ECHO), expected.toString());
+    }
+
+    @Test
+    public void missingValuesRenderAsEmpty() {
+        Map<String, String> values = Map.of("a", "1");
+        assertEquals(ParamTemplate.compile("${a}-${b}-").render(values::get), "1--");
+    }
+
+    @Test
+    public void reportsWhetherVariablesArePresent() {
+        assertFalse(ParamTemplate.compile("plain text").hasVariables());
+        assertFalse(ParamTemplate.compile("unclosed ${a").hasVariables());
+        assertTrue(ParamTemplate.compile("x ${a}").hasVariables());
+    }
+
+    @Test
+    public void replacementValuesAreNotReinterpreted() {
+        // 取到的值原样拼接，不再作为占位符或正则替换串解析
+        Map<String, String> values = Map.of("a", "${b}", "b", "x", "c", "$1\\");
+        assertEquals(ParamTemplate.compile("${a}|${c}").render(values::get), "${b}|$1\\");
+    }
+}
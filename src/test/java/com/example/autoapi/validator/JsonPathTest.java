@@ -0,0 +1,259 @@
+package com.example.autoapi.validator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * JsonPath：确定路径的原有报错、通配/递归/过滤的匹配结果与聚合函数
+ */
+public class JsonPathTest {
+
+    private static final String JSON = """
+            {
+              "code": 0,
+              "data": {
+                "list": [
+                  {"id": 1, "name": "a", "amount": 10, "status": "PAID"},
+                  {"id": 2, "name": "b", "amount": "20.5", "status": "NEW", "tag": null},
+                  {"id": 3, "name": "c", "amount": 30, "status": "PAID"}
+                ],
+                "nums": [1, 2, 3, 4],
+                "empty": [],
+                "a.b": "dotted",
+                "nested": {"id": 9}
+              }
+            }
+            """;
+
+    private JsonNode root;
+
+    @BeforeClass
+    public void parse() throws Exception {
+        root = new ObjectMapper().readTree(JSON);
+    }
+
+    private String text(String path) {
+        return JsonPath.compile(path).evaluate(root).asText();
+    }
+
+    private List<String> all(String path) {
+        return JsonPath.compile(path).evaluateAll(root).stream().map(JsonNode::asText).toList();
+    }
+
+    // ================= 确定路径 =================
+
+    @Test
+    public void definitePathsResolveFieldsAndIndexes() {
+        assertEquals(text("data.list[0].name"), "a");
+        assertEquals(text("$.data.list[1].status"), "NEW");
+        assertEquals(text("$.data.nested.id"), "9");
+        assertEquals(text("data.list[-1].id"), "3");
+        assertEquals(text("data.list[-3].id"), "1");
+    }
+
+    @Test
+    public void missingFieldKeepsBaselineMessage() {
+        AssertionError e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.missing").evaluate(root));
+        assertEquals(e.getMessage(), "❌ 路径不存在: missing（完整路径：data.missing）");
+
+        e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.list[0].missing.id").evaluate(root));
+        assertEquals(e.getMessage(), "❌ 路径不存在: missing（完整路径：data.list[0].missing.id）");
+    }
+
+    @Test
+    public void outOfRangeIndexKeepsBaselineMessage() {
+        AssertionError e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.list[5].name").evaluate(root));
+        assertEquals(e.getMessage(), "❌ 路径错误，数组字段不存在或索引越界: list[5]");
+
+        e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.list[-4]").evaluate(root));
+        assertEquals(e.getMessage(), "❌ 路径错误，数组字段不存在或索引越界: list[-4]");
+    }
+
+    @Test
+    public void missingArrayFieldReportsAsIndexError() {
+        AssertionError e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.nope[0]").evaluate(root));
+        assertEquals(e.getMessage(), "❌ 路径错误，数组字段不存在或索引越界: nope[0]");
+
+        // 字段存在但不是数组
+        e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.nested[0]").evaluate(root));
+        assertEquals(e.getMessage(), "❌ 路径错误，数组字段不存在或索引越界: nested[0]");
+    }
+
+    @Test
+    public void bracketQuotedFieldNames() {
+        assertEquals(text("data['a.b']"), "dotted");
+        assertEquals(text("data[\"a.b\"]"), "dotted");
+        assertTrue(JsonPath.compile("data['a.b']").isDefinite());
+    }
+
+    @Test
+    public void evaluateAllExpandsDefiniteArray() {
+        assertEquals(all("data.nums"), List.of("1", "2", "3", "4"));
+        assertEquals(all("data.list[1].name"), List.of("b"));
+        assertEquals(all("data.empty"), List.of());
+    }
+
+    // ================= 通配与递归 =================
+
+    @Test
+    public void wildcardsSelectAllChildren() {
+        assertEquals(all("data.list[*].id"), List.of("1", "2", "3"));
+        assertEquals(all("data.nested.*"), List.of("9"));
+        // 缺失的分支直接跳过，不报错
+        assertEquals(all("data.list[*].tag"), List.of("null"));
+        assertEquals(all("data.missing[*].id"), List.of());
+
+        JsonNode array = JsonPath.compile("data.list[*].name").evaluate(root);
+        assertTrue(array.isArray());
+        assertEquals(array.size(), 3);
+    }
+
+    @Test
+    public void recursiveDescentFindsFieldAtAnyDepth() {
+        assertEquals(all("..id"), List.of("1", "2", "3", "9"));
+        assertEquals(all("$..nested.id"), List.of("9"));
+        assertEquals(all("data..name"), List.of("a", "b", "c"));
+    }
+
+    // ================= 过滤 =================
+
+    @DataProvider
+    public Object[][] filters() {
+        return new Object[][]{
+                {"@.status=='PAID'", "1,3"},
+                {"@.status == \"PAID\"", "1,3"},
+                {"@.status!='PAID'", "2"},
+                // 边界值：> 不含、>= 含
+                {"@.amount>20.5", "3"},
+                {"@.amount>=20.5", "2,3"},
+                {"@.amount<20.5", "1"},
+                {"@.amount<=20.5", "1,2"},
+                {"@.id>=3", "3"},
+                {"@.id>3", ""},
+                // 字符串形式的数字按数值比较
+                {"@.amount==20.50", "2"},
+                // 未加引号按数值比较：10 > 9；加引号按字符串比较："10" < "9"
+                {"@.amount>9", "1,2,3"},
+                {"@.amount>'9'", ""},
+                {"@.name>'a'", "2,3"},
+                // 引号内的运算符不参与解析
+                {"@.name=='a>=b'", ""},
+                {"@.tag==null", "2"},
+                {"@.tag!=null", ""},
+                {"@.tag", "2"},
+                {"@.missing", ""},
+        };
+    }
+
+    @Test(dataProvider = "filters")
+    public void filterMatchesElements(String expr, String expectedIds) {
+        List<String> expected = expectedIds.isEmpty() ? List.of() : Arrays.asList(expectedIds.split(","));
+        assertEquals(all("data.list[?(" + expr + ")].id"), expected, expr);
+    }
+
+    @Test
+    public void filterOnNestedField() throws Exception {
+        JsonNode doc = new ObjectMapper().readTree("{\"items\":[{\"user\":{\"age\":17}},{\"user\":{\"age\":18}}]}");
+        List<JsonNode> adults = JsonPath.compile("items[?(@.user.age>=18)]").evaluateAll(doc);
+        assertEquals(adults.size(), 1);
+        assertEquals(adults.get(0).path("user").path("age").asInt(), 18);
+    }
+
+    // ================= 聚合 =================
+
+    @Test
+    public void aggregates() {
+        assertEquals(text("data.list.size()"), "3");
+        assertEquals(text("data.list.length()"), "3");
+        assertEquals(text("data.nested.size()"), "1");
+        assertEquals(text("data.list[0].name.size()"), "1");
+        assertEquals(text("data.list[*].amount.sum()"), "60.5");
+        assertEquals(text("data.list[*].amount.min()"), "10");
+        assertEquals(text("data.list[*].amount.max()"), "30");
+        assertEquals(text("data.nums.avg()"), "2.5");
+        assertEquals(text("data.nums.sum()"), "10");
+        assertEquals(text("data.list[?(@.status=='PAID')].size()"), "2");
+        assertEquals(all("data.nums.max()"), List.of("4"));
+    }
+
+    @Test
+    public void sumOfNothingIsZero() {
+        assertEquals(text("data.empty.sum()"), "0");
+        assertEquals(text("data.list[?(@.id>9)].amount.sum()"), "0");
+        assertEquals(text("data.list[?(@.id>9)].size()"), "0");
+    }
+
+    @Test
+    public void aggregateErrors() {
+        AssertionError e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.empty.avg()").evaluate(root));
+        assertTrue(e.getMessage().contains("没有可聚合的数值"), e.getMessage());
+
+        e = expectThrows(AssertionError.class, () -> JsonPath.compile("data.list[*].name.sum()").evaluate(root));
+        assertTrue(e.getMessage().contains("聚合的值不是数字"), e.getMessage());
+
+        e = expectThrows(AssertionError.class, () -> JsonPath.compile("code.size()").evaluate(root));
+        assertTrue(e.getMessage().contains("size() 只能用于"), e.getMessage());
+    }
+
+    @Test
+    public void aggregateMustBeLast() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> JsonPath.compile("data.list.size().x"));
+        assertTrue(e.getMessage().contains("聚合函数必须放在路径末尾"), e.getMessage());
+    }
+
+    // ================= 语法与编译结果 =================
+
+    @DataProvider
+    public Object[][] badPaths() {
+        return new Object[][]{
+                {""},
+                {"data.list[abc]"},
+                {"data.list[0"},
+                {"data..[0"},
+                {"data.foo()"},
+                {"data.list[?(status=='PAID')]"},
+                {"data.list[?(@.id==)]"},
+                {"data.list[0]name"},
+        };
+    }
+
+    @Test(dataProvider = "badPaths")
+    public void syntaxErrorsAreIllegalArgument(String path) {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> JsonPath.compile(path));
+        assertTrue(e.getMessage().startsWith("❌ JSON 路径语法错误"), e.getMessage());
+    }
+
+    @Test
+    public void classifiesPaths() {
+        assertTrue(JsonPath.compile("data.list[0].name").isDefinite());
+        assertTrue(JsonPath.compile("data.list[-1]").isDefinite());
+        assertFalse(JsonPath.compile("data.list[*].id").isDefinite());
+        assertFalse(JsonPath.compile("..id").isDefinite());
+        assertFalse(JsonPath.compile("data.list[?(@.id>1)]").isDefinite());
+
+        assertTrue(JsonPath.compile("data.list.size()").isAggregate());
+        assertFalse(JsonPath.compile("data.list").isAggregate());
+    }
+
+    @Test
+    public void streamStepsOnlyForForwardDefinitePaths() {
+        assertEquals(JsonPath.compile("$.data.list[0].name").streamSteps(), List.of("data", "list", 0, "name"));
+        assertNull(JsonPath.compile("data.list[-1].name").streamSteps());
+        assertNull(JsonPath.compile("data.list[*].name").streamSteps());
+        assertNull(JsonPath.compile("data.list.size()").streamSteps());
+    }
+
+    @Test
+    public void compiledPathsAreCached() {
+        assertSame(JsonPath.compile("data.list[1].id"), JsonPath.compile("data.list[1].id"));
+        assertEquals(JsonPath.compile("data.list[1].id").toString(), "data.list[1].id");
+    }
+}